@@ -0,0 +1,1335 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.InvalidPluginDescriptorException;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.PluginDescriptorParsingException;
+import org.apache.maven.plugin.PluginManagerException;
+import org.apache.maven.plugin.PluginNotFoundException;
+import org.apache.maven.plugin.PluginResolutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.RepositorySystem;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.twdata.maven.mojoexecutor.MojoExecutor;
+
+/**
+ * Base of the generate goals, the goals differ only in the way the changelogs are provided to
+ * liquibase.
+ *
+ * @author Raman Babich
+ */
+public abstract class AbstractGenerateMojo extends AbstractMojo {
+
+  private static final String THIS_PLUGIN_KEY = "com.ramanbabich.dbljc:pgljc-maven-plugin";
+  private static final String POSTGRES_DRIVER_NAME = "org.postgresql.Driver";
+  private static final String JOOQ_POSTGRES_META = "org.jooq.meta.postgres.PostgresDatabase";
+  private static final String LIQUIBASE_CONFIGURATION_ROOT_ELEMENT_NAME = "liquibaseConfiguration";
+  private static final String JOOQ_CONFIGURATION_ROOT_ELEMENT_NAME = "jooqConfiguration";
+  private static final String DEFAULT_ROOT_ELEMENT_NAME = "configuration";
+  private static final String GENERATIONS_ELEMENT_NAME = "generations";
+  private static final String LIQUIBASE_MAVEN_PLUGIN_GOAL = "update";
+  private static final String LIQUIBASE_MAVEN_PLUGIN_SQL_GOAL = "updateSQL";
+  private static final String JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL = "generate";
+  private static final String JOOQ_DEFAULT_TARGET_DIRECTORY = "generated-sources/jooq";
+  private static final String JOOQ_DEFAULT_TARGET_PACKAGE_NAME = "org.jooq.generated";
+  static final String FINGERPRINT_FILE_NAME = "fingerprint";
+  private static final String ISOLATED_DATABASE_NAME_PREFIX = "pgljc_";
+  private static final String REPORT_FILE_NAME = "report.json";
+  private static final String STAGING_DIRECTORY_NAME = "staging";
+  private static final String CATALOG_FILE_NAME = "catalog";
+  private static final String UPDATE_SCRIPT_FILE_SUFFIX = "-update.sql";
+  private static final String LIQUIBASE_DEFAULT_CHANGELOG_TABLE_NAME = "databasechangelog";
+  private static final String MAVEN_EXECUTION_ENGINE = "maven";
+  private static final String IN_PROCESS_EXECUTION_ENGINE = "in-process";
+  private static final String DOCKER_POSTGRES_PROVIDER = "docker";
+  private static final String EMBEDDED_POSTGRES_PROVIDER = "embedded";
+  static final String DEFAULT_POSTGRES_JDBC_DRIVER_VERSION = "42.6.0";
+  static final String DEFAULT_LIQUIBASE_MAVEN_PLUGIN_VERSION = "4.22.0";
+  static final String DEFAULT_JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION = "3.18.4";
+  static final String DEFAULT_WORK_DIRECTORY_NAME = "pgljc";
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  protected MavenProject project;
+  @Parameter(defaultValue = "${session}", readonly = true)
+  protected MavenSession session;
+  @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+  private MojoExecution mojoExecution;
+  @Component
+  protected BuildPluginManager buildPluginManager;
+  @Component
+  private RepositorySystem repositorySystem;
+
+  /**
+   * Liquibase keeps its current scope, e.g. the database and the resource accessor, in a single
+   * static field of its plugin realm which is shared by all the executions in the jvm, so the
+   * liquibase maven plugin is run one execution at a time.
+   */
+  private static final Object LIQUIBASE_LOCK = new Object();
+
+  private final Object projectLock = new Object();
+  private GenerationReport report;
+  private InProcessEngine inProcessEngine;
+  private final Set<Generation> unchangedCatalogs =
+      Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+  @Parameter(name = "postgresDockerImageName",
+      defaultValue = PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME)
+  private String postgresDockerImageName;
+
+  @Parameter(name = "postgresJdbcDriverVersion",
+      defaultValue = DEFAULT_POSTGRES_JDBC_DRIVER_VERSION)
+  private String postgresJdbcDriverVersion;
+
+  @Parameter(name = "liquibaseMavenPluginVersion",
+      defaultValue = DEFAULT_LIQUIBASE_MAVEN_PLUGIN_VERSION)
+  private String liquibaseMavenPluginVersion;
+
+  @Parameter(name = "jooqCodegenMavenPluginVersion",
+      defaultValue = DEFAULT_JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION)
+  private String jooqCodegenMavenPluginVersion;
+
+  /**
+   * Skip the generation when the changelogs, the plugin configuration and the generated sources
+   * are the same as after the previous successful run.
+   */
+  @Parameter(name = "incremental", defaultValue = "true")
+  private boolean incremental;
+
+  /**
+   * Directory to keep the plugin state between builds, e.g. fingerprints of the inputs, and the
+   * report of the last run.
+   */
+  @Parameter(name = "workDirectory",
+      defaultValue = "${project.build.directory}/" + DEFAULT_WORK_DIRECTORY_NAME)
+  private File workDirectory;
+
+  /**
+   * Restore the generated sources from the local cache shared by all the projects and branches
+   * on this machine instead of running postgres and the generation.
+   */
+  @Parameter(name = "cacheEnabled", defaultValue = "false")
+  private boolean cacheEnabled;
+
+  @Parameter(name = "cacheDirectory", defaultValue = "${user.home}/.m2/pgljc-cache")
+  private File cacheDirectory;
+
+  /**
+   * Total size of the cache entries, the least recently used entries are evicted first.
+   */
+  @Parameter(name = "cacheMaxSizeMegabytes", defaultValue = "1024")
+  private long cacheMaxSizeMegabytes;
+
+  /**
+   * Entries not used for this number of days are evicted.
+   */
+  @Parameter(name = "cacheMaxAgeDays", defaultValue = "30")
+  private long cacheMaxAgeDays;
+
+  /**
+   * Keep the postgres container running after the generation, so it is reused by the other
+   * executions of the build and, if testcontainers reuse is enabled, by the next builds. Every
+   * execution runs in the freshly created database which is dropped afterwards.
+   */
+  @Parameter(name = "reuseContainer", defaultValue = "false")
+  private boolean reuseContainer;
+
+  /**
+   * Keep the fully migrated databases as template databases in the reused container, so the next
+   * executions copy the snapshot whose changelog files are the longest unchanged leading part of
+   * their changelogs and liquibase applies only the changesets after it. Has effect only if the
+   * container is reused.
+   */
+  @Parameter(name = "templateSnapshots", defaultValue = "false")
+  private boolean templateSnapshots;
+
+  /**
+   * Number of template snapshots to keep in the container, the oldest snapshots are dropped.
+   */
+  @Parameter(name = "maxTemplateSnapshots", defaultValue = "5")
+  private int maxTemplateSnapshots;
+
+  /**
+   * Max number of the generations configured in the {@code generations} section that are run
+   * concurrently, every generation runs in its own database of the shared container. The
+   * liquibase maven plugin is run by one generation at a time.
+   */
+  @Parameter(name = "parallelism", defaultValue = "2")
+  private int parallelism;
+
+  /**
+   * Run postgres with the durability features disabled and the data directory in memory, the
+   * database is thrown away after the generation, so nothing is lost.
+   */
+  @Parameter(name = "ephemeralPostgres", defaultValue = "true")
+  private boolean ephemeralPostgres;
+
+  /**
+   * Extra postgres server settings in the {@code name=value} form, they are passed to the server
+   * with the {@code -c} flag and take precedence over the settings of the ephemeral postgres.
+   */
+  @Parameter(name = "postgresServerOptions")
+  private List<String> postgresServerOptions;
+
+  /**
+   * The way liquibase and jooq are run: {@code maven} executes their maven plugins,
+   * {@code in-process} calls their apis directly from the class loaders cached for the whole
+   * build, which saves the plugin resolution on every execution.
+   */
+  @Parameter(name = "executionEngine", defaultValue = MAVEN_EXECUTION_ENGINE)
+  private String executionEngine;
+
+  /**
+   * Snapshot the catalog after liquibase update: tables, columns, constraints, indexes,
+   * sequences, types and routines of the user schemas. If the snapshot and the jooq configuration
+   * are the same as the ones of the previous generation, jooq is not run and the generated
+   * sources are kept as is, e.g. when the changesets only modify data.
+   */
+  @Parameter(name = "catalogSnapshots", defaultValue = "false")
+  private boolean catalogSnapshots;
+
+  /**
+   * The way postgres is run: {@code docker} starts the postgres docker container,
+   * {@code embedded} starts the embedded postgres binaries as a child process, so docker is not
+   * needed at all. The docker image name is ignored by the embedded postgres.
+   */
+  @Parameter(name = "postgresProvider", defaultValue = DOCKER_POSTGRES_PROVIDER)
+  private String postgresProvider;
+
+  /**
+   * Version of the embedded postgres binaries. Only the binaries artifact of the host os and
+   * architecture is resolved, when the embedded postgres is started.
+   */
+  @Parameter(name = "embeddedPostgresVersion",
+      defaultValue = EmbeddedPostgresServer.DEFAULT_BINARIES_VERSION)
+  private String embeddedPostgresVersion;
+
+  /**
+   * Render the pending changesets with liquibase {@code updateSQL} and apply the script in a
+   * single transaction, sending the changesets to the server in batches instead of running and
+   * committing them one by one. The changesets relying on the preconditions that check the
+   * objects created by the same update, as well as the changes that can't be rendered to sql, need
+   * the regular update.
+   */
+  @Parameter(name = "fastApply", defaultValue = "false")
+  private boolean fastApply;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    List<Generation> generations = generations();
+    initialize();
+    try {
+      List<Generation> pending = new ArrayList<>();
+      List<String> fingerprints = new ArrayList<>();
+      for (Generation generation : generations) {
+        String fingerprint = incremental || cacheEnabled ? fingerprint(generation) : null;
+        if (!isRestored(generation, fingerprint)) {
+          pending.add(generation);
+          fingerprints.add(fingerprint);
+        }
+      }
+      if (pending.isEmpty()) {
+        return;
+      }
+      prepareChangelogs(pending);
+      generate(pending);
+      for (int i = 0; i < pending.size(); ++i) {
+        complete(pending.get(i), fingerprints.get(i));
+      }
+    } finally {
+      writeReport();
+    }
+  }
+
+  /**
+   * Sets up the execution engine and the report, must be called before the generation.
+   *
+   * @throws MojoExecutionException if the execution engine is unknown
+   */
+  void initialize() throws MojoExecutionException {
+    inProcessEngine = inProcessEngine();
+    report = new GenerationReport();
+  }
+
+  /**
+   * Regenerates the sources of all the generations regardless of their fingerprints, every
+   * generation is run in its own database of the already running server. The report of the
+   * generation is written and the next generation starts with the new one.
+   *
+   * @param server running postgres server
+   * @throws MojoExecutionException if any of the generations fails
+   */
+  void regenerate(PostgresServer server) throws MojoExecutionException {
+    try {
+      List<Generation> generations = generations();
+      List<String> fingerprints = new ArrayList<>();
+      for (Generation generation : generations) {
+        fingerprints.add(incremental || cacheEnabled ? fingerprint(generation) : null);
+      }
+      prepareChangelogs(generations);
+      generateConcurrently(generations, server.database());
+      for (int i = 0; i < generations.size(); ++i) {
+        complete(generations.get(i), fingerprints.get(i));
+      }
+    } finally {
+      writeReport();
+      report = new GenerationReport();
+    }
+  }
+
+  /**
+   * Starts postgres the same way the generation does and keeps it running while the action is
+   * run. The reusable container is kept running afterwards.
+   *
+   * @param action action to run against the server
+   * @throws MojoExecutionException if the postgres provider is unknown or the action fails
+   */
+  void withPostgresServer(PostgresServerAction action) throws MojoExecutionException {
+    if (!DOCKER_POSTGRES_PROVIDER.equals(postgresProvider)
+        && !EMBEDDED_POSTGRES_PROVIDER.equals(postgresProvider)) {
+      throw new MojoExecutionException(String.format(
+          "Unknown postgres provider '%s', expected %s or %s", postgresProvider,
+          DOCKER_POSTGRES_PROVIDER, EMBEDDED_POSTGRES_PROVIDER));
+    }
+    PostgresContainerSettings settings = PostgresContainerSettings.of(
+        postgresDockerImageName, ephemeralPostgres, postgresServerOptions, reuseContainer);
+    if (reuseContainer) {
+      String provider = EMBEDDED_POSTGRES_PROVIDER.equals(postgresProvider)
+          ? postgresProvider + ' ' + embeddedPostgresVersion : postgresProvider;
+      action.run(SharedPostgresServers.obtain(
+          provider + ' ' + settings.key(), () -> startPostgresServer(settings)));
+      return;
+    }
+    PostgresServer server = startPostgresServer(settings);
+    try {
+      action.run(server);
+    } finally {
+      long started = System.nanoTime();
+      server.close();
+      report.record(GenerationReport.Phase.CONTAINER_STOP, System.nanoTime() - started);
+    }
+  }
+
+  /**
+   * Warms up everything the generation needs in parallel: postgres is started once to pull the
+   * image or to extract the embedded binaries and to verify it accepts the connections, liquibase
+   * and jooq are resolved along with the jdbc driver and loaded the way the execution engine runs
+   * them.
+   *
+   * @throws MojoExecutionException if any of the preparations fails
+   */
+  void prepare() throws MojoExecutionException {
+    initialize();
+    Map<String, Callable<Void>> preparations = new LinkedHashMap<>();
+    preparations.put("postgres", () -> {
+      withPostgresServer(AbstractGenerateMojo::verifyReadiness);
+      return null;
+    });
+    preparations.put("liquibase", () -> {
+      long started = System.nanoTime();
+      if (inProcessEngine != null) {
+        inProcessEngine.preloadLiquibase();
+      } else {
+        loadMavenPlugin(liquibaseMavenPlugin(liquibaseMavenPluginVersion,
+            postgresJdbcDriverVersion));
+      }
+      report.record(GenerationReport.Phase.PLUGIN_RESOLUTION, System.nanoTime() - started);
+      return null;
+    });
+    preparations.put("jooq", () -> {
+      long started = System.nanoTime();
+      if (inProcessEngine != null) {
+        inProcessEngine.preloadJooq();
+      } else {
+        loadMavenPlugin(jooqCodegenMavenPlugin(jooqCodegenMavenPluginVersion,
+            postgresJdbcDriverVersion));
+      }
+      report.record(GenerationReport.Phase.PLUGIN_RESOLUTION, System.nanoTime() - started);
+      return null;
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(preparations.size());
+    try {
+      Map<String, Future<Void>> futures = new LinkedHashMap<>();
+      preparations.forEach((name, preparation) -> futures.put(name, executor.submit(preparation)));
+      List<String> failures = new ArrayList<>();
+      List<Throwable> causes = new ArrayList<>();
+      for (Map.Entry<String, Future<Void>> future : futures.entrySet()) {
+        try {
+          future.getValue().get();
+        } catch (ExecutionException ex) {
+          failures.add(future.getKey() + ": " + ex.getCause().getMessage());
+          causes.add(ex.getCause());
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new MojoExecutionException("Preparation is interrupted", ex);
+        }
+      }
+      if (!failures.isEmpty()) {
+        MojoExecutionException exception = new MojoExecutionException(String.format(
+            "%d of %d preparations failed:%n  %s", failures.size(), preparations.size(),
+            String.join(System.lineSeparator() + "  ", failures)));
+        causes.forEach(exception::addSuppressed);
+        throw exception;
+      }
+    } finally {
+      executor.shutdownNow();
+      writeReport();
+    }
+  }
+
+  boolean templateSnapshotsEnabled() {
+    return templateSnapshots;
+  }
+
+  List<Generation> generations() throws MojoExecutionException {
+    List<Generation> generations = generations(
+        (Xpp3Dom) project.getPlugin(THIS_PLUGIN_KEY).getConfiguration());
+    Set<Path> packageDirectories = new HashSet<>();
+    for (Generation generation : generations) {
+      Path packageDirectory = jooqTargetPackageDirectory(generation.jooqConfiguration(),
+          jooqTargetDirectory(generation.jooqConfiguration()));
+      if (!packageDirectories.add(packageDirectory)) {
+        throw new MojoExecutionException(String.format(
+            "Target package %s of %s is used by another generation",
+            packageDirectory, generation.describe()));
+      }
+    }
+    return generations;
+  }
+
+  /**
+   * Reads the generations from the plugin configuration.
+   *
+   * @param configuration plugin configuration
+   * @return generations in the order of declaration
+   * @throws MojoExecutionException if the generations are misconfigured
+   */
+  static List<Generation> generations(Xpp3Dom configuration) throws MojoExecutionException {
+    Xpp3Dom generationsElement = configuration.getChild(GENERATIONS_ELEMENT_NAME);
+    if (generationsElement == null) {
+      return List.of(generation(null, configuration));
+    }
+    if (configuration.getChild(LIQUIBASE_CONFIGURATION_ROOT_ELEMENT_NAME) != null
+        || configuration.getChild(JOOQ_CONFIGURATION_ROOT_ELEMENT_NAME) != null) {
+      throw new MojoExecutionException(String.format(
+          "Either %s and %s or %s must be configured",
+          LIQUIBASE_CONFIGURATION_ROOT_ELEMENT_NAME, JOOQ_CONFIGURATION_ROOT_ELEMENT_NAME,
+          GENERATIONS_ELEMENT_NAME));
+    }
+    List<Generation> generations = new ArrayList<>();
+    Xpp3Dom[] elements = generationsElement.getChildren();
+    for (int i = 0; i < elements.length; ++i) {
+      Xpp3Dom idElement = elements[i].getChild("id");
+      String id = idElement == null || idElement.getValue() == null
+          || idElement.getValue().isBlank()
+          ? String.valueOf(i + 1)
+          : idElement.getValue().trim();
+      generations.add(generation(id, elements[i]));
+    }
+    return generations;
+  }
+
+  private static Generation generation(String id, Xpp3Dom element)
+      throws MojoExecutionException {
+    Xpp3Dom liquibaseConfiguration = element.getChild(LIQUIBASE_CONFIGURATION_ROOT_ELEMENT_NAME);
+    Xpp3Dom jooqConfiguration = element.getChild(JOOQ_CONFIGURATION_ROOT_ELEMENT_NAME);
+    if (liquibaseConfiguration == null || jooqConfiguration == null) {
+      throw new MojoExecutionException(String.format("Both %s and %s must be configured%s",
+          LIQUIBASE_CONFIGURATION_ROOT_ELEMENT_NAME, JOOQ_CONFIGURATION_ROOT_ELEMENT_NAME,
+          id == null ? "" : " for generation '" + id + "'"));
+    }
+    return new Generation(id,
+        renameElement(liquibaseConfiguration, DEFAULT_ROOT_ELEMENT_NAME),
+        renameElement(jooqConfiguration, DEFAULT_ROOT_ELEMENT_NAME));
+  }
+
+  private boolean isRestored(Generation generation, String fingerprint)
+      throws MojoExecutionException {
+    if (fingerprint == null) {
+      return false;
+    }
+    Xpp3Dom jooqConfiguration = generation.jooqConfiguration();
+    Path targetDirectory = jooqTargetDirectory(jooqConfiguration);
+    Path packageDirectory = jooqTargetPackageDirectory(jooqConfiguration, targetDirectory);
+    Path fingerprintFile = workDirectory(generation).resolve(FINGERPRINT_FILE_NAME);
+    if (incremental && isUpToDate(fingerprintFile, fingerprint, packageDirectory)) {
+      getLog().info(String.format(
+          "Changelogs and configuration are unchanged, %s is skipped", generation.describe()));
+      project.addCompileSourceRoot(targetDirectory.toString());
+      recordOutcome(generation, GenerationReport.Status.UP_TO_DATE);
+      return true;
+    }
+    deleteFingerprint(fingerprintFile);
+    if (cacheEnabled && restoreFromCache(fingerprint, packageDirectory)) {
+      getLog().info(String.format(
+          "Generated sources of %s are restored from %s", generation.describe(), cacheDirectory));
+      project.addCompileSourceRoot(targetDirectory.toString());
+      writeFingerprint(fingerprintFile, fingerprint);
+      recordOutcome(generation, GenerationReport.Status.CACHED);
+      return true;
+    }
+    return false;
+  }
+
+  private void complete(Generation generation, String fingerprint)
+      throws MojoExecutionException {
+    recordOutcome(generation, unchangedCatalogs.contains(generation)
+        ? GenerationReport.Status.CATALOG_UNCHANGED
+        : GenerationReport.Status.GENERATED);
+    if (fingerprint == null) {
+      return;
+    }
+    if (cacheEnabled) {
+      Xpp3Dom jooqConfiguration = generation.jooqConfiguration();
+      storeToCache(fingerprint, jooqTargetPackageDirectory(
+          jooqConfiguration, jooqTargetDirectory(jooqConfiguration)));
+    }
+    writeFingerprint(workDirectory(generation).resolve(FINGERPRINT_FILE_NAME), fingerprint);
+  }
+
+  private void generate(List<Generation> generations) throws MojoExecutionException {
+    if (templateSnapshots && !reuseContainer) {
+      getLog().warn("Template snapshots have effect only if the container is reused");
+    }
+    withPostgresServer(server -> {
+      if (reuseContainer || generations.size() > 1) {
+        generateConcurrently(generations, server.database());
+      } else {
+        generate(generations.get(0), server.database());
+      }
+    });
+  }
+
+  private void generate(Generation generation, PostgresDatabase database)
+      throws MojoExecutionException {
+    runLiquibase(generation.liquibaseConfiguration(), database);
+    countChangesets(generation, database);
+    runJooq(generation, database);
+  }
+
+  /**
+   * Runs every generation in its own database of the server, at most {@code parallelism}
+   * generations at a time. All the generations are run even if some of them fail.
+   */
+  private void generateConcurrently(List<Generation> generations, PostgresDatabase server)
+      throws MojoExecutionException {
+    if (generations.size() == 1) {
+      generateInIsolatedDatabase(generations.get(0), server);
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(parallelism, generations.size())));
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (Generation generation : generations) {
+        futures.add(executor.submit(() -> {
+          generateInIsolatedDatabase(generation, server);
+          return null;
+        }));
+      }
+      List<String> failures = new ArrayList<>();
+      List<Throwable> causes = new ArrayList<>();
+      for (int i = 0; i < futures.size(); ++i) {
+        try {
+          futures.get(i).get();
+        } catch (ExecutionException ex) {
+          failures.add(generations.get(i).describe() + ": " + ex.getCause().getMessage());
+          causes.add(ex.getCause());
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new MojoExecutionException("Generation is interrupted", ex);
+        }
+      }
+      if (!failures.isEmpty()) {
+        MojoExecutionException exception = new MojoExecutionException(String.format(
+            "%d of %d generations failed:%n  %s", failures.size(), generations.size(),
+            String.join(System.lineSeparator() + "  ", failures)));
+        causes.forEach(exception::addSuppressed);
+        throw exception;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Resolves the plugin with its dependencies and sets up its class realm the same way the mojo
+   * executor does it before executing the plugin goal.
+   */
+  private void loadMavenPlugin(Plugin plugin) throws MojoExecutionException {
+    try {
+      buildPluginManager.getPluginRealm(session, buildPluginManager.loadPlugin(
+          plugin, project.getRemotePluginRepositories(), session.getRepositorySession()));
+    } catch (PluginNotFoundException | PluginResolutionException
+        | PluginDescriptorParsingException | InvalidPluginDescriptorException
+        | PluginManagerException ex) {
+      throw new MojoExecutionException("Unable to load " + plugin.getId(), ex);
+    }
+  }
+
+  private static void verifyReadiness(PostgresServer server) throws MojoExecutionException {
+    PostgresDatabase database = server.database();
+    try (Connection connection = database.connect()) {
+      if (!connection.isValid(0)) {
+        throw new MojoExecutionException("Postgres doesn't respond at " + database.jdbcUrl());
+      }
+    } catch (SQLException ex) {
+      throw new MojoExecutionException("Unable to connect to postgres at " + database.jdbcUrl(),
+          ex);
+    }
+  }
+
+  private void runLiquibase(Xpp3Dom liquibaseConfiguration, PostgresDatabase database)
+      throws MojoExecutionException {
+    if (fastApply) {
+      fastApply(liquibaseConfiguration, database);
+      return;
+    }
+    long started = System.nanoTime();
+    try {
+      if (inProcessEngine != null) {
+        inProcessEngine.update(setLiquibaseDbConnectionValues(liquibaseConfiguration, database),
+            changelogClasspath(liquibaseConfiguration), project.getBasedir().toPath());
+        return;
+      }
+      synchronized (LIQUIBASE_LOCK) {
+        MojoExecutor.executeMojo(
+            liquibaseMavenPlugin(liquibaseMavenPluginVersion, postgresJdbcDriverVersion),
+            MojoExecutor.goal(LIQUIBASE_MAVEN_PLUGIN_GOAL),
+            setLiquibaseDbConnectionValues(liquibaseConfiguration, database),
+            MojoExecutor.executionEnvironment(project, session, buildPluginManager));
+      }
+    } finally {
+      report.record(GenerationReport.Phase.LIQUIBASE_UPDATE, System.nanoTime() - started);
+    }
+  }
+
+  /**
+   * Renders the update script with liquibase and applies it through the jdbc connection, the
+   * rendering time is recorded as the liquibase update.
+   */
+  private void fastApply(Xpp3Dom liquibaseConfiguration, PostgresDatabase database)
+      throws MojoExecutionException {
+    Path scriptFile = executionWorkDirectory()
+        .resolve(database.databaseName() + UPDATE_SCRIPT_FILE_SUFFIX);
+    try {
+      fastApply(liquibaseConfiguration, database, scriptFile);
+    } finally {
+      try {
+        Files.deleteIfExists(scriptFile);
+      } catch (IOException ex) {
+        getLog().warn("Unable to delete liquibase update sql " + scriptFile, ex);
+      }
+    }
+  }
+
+  private void fastApply(Xpp3Dom liquibaseConfiguration, PostgresDatabase database,
+      Path scriptFile) throws MojoExecutionException {
+    long started = System.nanoTime();
+    try {
+      if (inProcessEngine != null) {
+        inProcessEngine.updateSql(setLiquibaseDbConnectionValues(liquibaseConfiguration, database),
+            changelogClasspath(liquibaseConfiguration), project.getBasedir().toPath(),
+            scriptFile);
+      } else {
+        Xpp3Dom configuration = setLiquibaseDbConnectionValues(liquibaseConfiguration, database);
+        getOrCreateChild(configuration, "migrationSqlOutputFile")
+            .setValue(scriptFile.toString());
+        synchronized (LIQUIBASE_LOCK) {
+          MojoExecutor.executeMojo(
+              liquibaseMavenPlugin(liquibaseMavenPluginVersion, postgresJdbcDriverVersion),
+              MojoExecutor.goal(LIQUIBASE_MAVEN_PLUGIN_SQL_GOAL),
+              configuration,
+              MojoExecutor.executionEnvironment(project, session, buildPluginManager));
+        }
+      }
+    } finally {
+      report.record(GenerationReport.Phase.LIQUIBASE_UPDATE, System.nanoTime() - started);
+    }
+    started = System.nanoTime();
+    try (Connection connection = database.connect()) {
+      UpdateScript script =
+          UpdateScript.parse(Files.readString(scriptFile, StandardCharsets.UTF_8));
+      script.apply(connection, UpdateScript.BATCH_SIZE);
+      getLog().info(String.format("%d changesets are applied to %s in a single transaction",
+          script.changesets().size(), database.databaseName()));
+    } catch (IOException ex) {
+      throw new MojoExecutionException("Unable to read liquibase update sql " + scriptFile, ex);
+    } catch (SQLException ex) {
+      throw new MojoExecutionException("Fast apply failed: " + ex.getMessage(), ex);
+    } finally {
+      report.record(GenerationReport.Phase.FAST_APPLY, System.nanoTime() - started);
+    }
+  }
+
+  /**
+   * Runs jooq generation into the staging directory and then syncs the generated sources into
+   * the target directory, so the sources that are not changed by the generation are not touched.
+   */
+  private void runJooq(Generation generation, PostgresDatabase database)
+      throws MojoExecutionException {
+    Xpp3Dom jooqConfiguration = generation.jooqConfiguration();
+    Path targetDirectory = jooqTargetDirectory(jooqConfiguration);
+    Path catalogFile = workDirectory(generation).resolve(CATALOG_FILE_NAME);
+    String catalog = catalogSnapshots ? catalogDigest(generation, database) : null;
+    if (catalog != null && isUpToDate(catalogFile, catalog,
+        jooqTargetPackageDirectory(jooqConfiguration, targetDirectory))) {
+      getLog().info(String.format(
+          "Catalog is unchanged, jooq generation of %s is skipped", generation.describe()));
+      synchronized (projectLock) {
+        project.addCompileSourceRoot(targetDirectory.toString());
+      }
+      unchangedCatalogs.add(generation);
+      return;
+    }
+    deleteFingerprint(catalogFile);
+    Path stagingDirectory = workDirectory(generation).resolve(STAGING_DIRECTORY_NAME);
+    Xpp3Dom configuration = setJooqDbConnectionValues(jooqConfiguration, database);
+    getOrCreateChild(getOrCreateChild(getOrCreateChild(configuration, "generator"), "target"),
+        "directory").setValue(stagingDirectory.toString());
+    try {
+      GenerationCache.deleteRecursively(stagingDirectory);
+      long jooqStarted = System.nanoTime();
+      try {
+        if (inProcessEngine != null) {
+          // the in-process generation doesn't touch the project, so it runs concurrently
+          inProcessEngine.generate(configuration);
+        } else {
+          // jooq codegen maven plugin modifies the project compile source roots which are not
+          // thread safe, so concurrent generations run it one by one
+          synchronized (projectLock) {
+            MojoExecutor.executeMojo(
+                jooqCodegenMavenPlugin(jooqCodegenMavenPluginVersion, postgresJdbcDriverVersion),
+                MojoExecutor.goal(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL),
+                configuration,
+                MojoExecutor.executionEnvironment(project, session, buildPluginManager));
+            project.getCompileSourceRoots().removeIf(
+                root -> Path.of(root).equals(stagingDirectory));
+          }
+        }
+      } finally {
+        report.record(GenerationReport.Phase.JOOQ_GENERATE, System.nanoTime() - jooqStarted);
+      }
+      synchronized (projectLock) {
+        project.addCompileSourceRoot(targetDirectory.toString());
+      }
+      long started = System.nanoTime();
+      DirectorySync.Result result = DirectorySync.sync(
+          jooqTargetPackageDirectory(jooqConfiguration, stagingDirectory),
+          jooqTargetPackageDirectory(jooqConfiguration, targetDirectory));
+      report.record(GenerationReport.Phase.SOURCES_SYNC, System.nanoTime() - started);
+      report.recordWrittenBytes(generation, result.writtenBytes());
+      getLog().info(String.format(
+          "Generated sources of %s are synced: %d written, %d unchanged, %d deleted",
+          generation.describe(), result.written(), result.unchanged(), result.deleted()));
+      GenerationCache.deleteRecursively(stagingDirectory);
+    } catch (IOException ex) {
+      throw new MojoExecutionException(
+          "Unable to sync generated sources into " + targetDirectory, ex);
+    }
+    if (catalog != null) {
+      writeFingerprint(catalogFile, catalog);
+    }
+  }
+
+  /**
+   * Digests the catalog snapshot together with the jooq configuration and version, so any of
+   * them changed means the sources are to be generated again. If the catalog can't be read,
+   * jooq is just run.
+   */
+  private String catalogDigest(Generation generation, PostgresDatabase database) {
+    long started = System.nanoTime();
+    try {
+      return new Fingerprint()
+          .add(database.catalogDigest())
+          .add(generation.jooqConfiguration().toString())
+          .add(jooqCodegenMavenPluginVersion)
+          .toHex();
+    } catch (SQLException ex) {
+      getLog().warn("Unable to snapshot the catalog of " + generation.describe(), ex);
+      return null;
+    } finally {
+      report.record(GenerationReport.Phase.CATALOG_SNAPSHOT, System.nanoTime() - started);
+    }
+  }
+
+  private InProcessEngine inProcessEngine() throws MojoExecutionException {
+    if (MAVEN_EXECUTION_ENGINE.equals(executionEngine)) {
+      return null;
+    }
+    if (!IN_PROCESS_EXECUTION_ENGINE.equals(executionEngine)) {
+      throw new MojoExecutionException(String.format(
+          "Unknown execution engine '%s', expected %s or %s", executionEngine,
+          MAVEN_EXECUTION_ENGINE, IN_PROCESS_EXECUTION_ENGINE));
+    }
+    return new InProcessEngine(repositorySystem, session.getRepositorySession(),
+        project.getRemoteProjectRepositories(), liquibaseMavenPluginVersion,
+        jooqCodegenMavenPluginVersion, postgresJdbcDriverVersion);
+  }
+
+  /**
+   * Returns the compile classpath of the project the same way the liquibase maven plugin sees
+   * it. If the changelogs are looked up in the search path, the output directory is left out, so
+   * the stale copies of the changelogs don't clash with the ones in the search path.
+   */
+  private List<Path> changelogClasspath(Xpp3Dom liquibaseConfiguration)
+      throws MojoExecutionException {
+    try {
+      String outputDirectory = project.getBuild().getOutputDirectory();
+      boolean searchPath = childValue(liquibaseConfiguration, "searchPath") != null;
+      List<Path> classpath = new ArrayList<>();
+      for (String element : project.getCompileClasspathElements()) {
+        if (!(searchPath && element.equals(outputDirectory))) {
+          classpath.add(Path.of(element));
+        }
+      }
+      return classpath;
+    } catch (DependencyResolutionRequiredException ex) {
+      throw new MojoExecutionException("Compile classpath of the project isn't resolved", ex);
+    }
+  }
+
+  /**
+   * Records the number of the changesets applied to the database, the number is informational,
+   * so failures are only logged.
+   */
+  private void countChangesets(Generation generation, PostgresDatabase database) {
+    Xpp3Dom liquibaseConfiguration = generation.liquibaseConfiguration();
+    String schemaName = childValue(liquibaseConfiguration, "liquibaseSchemaName");
+    if (schemaName == null) {
+      schemaName = childValue(liquibaseConfiguration, "defaultSchemaName");
+    }
+    String tableName = childValue(liquibaseConfiguration, "databaseChangeLogTableName");
+    try {
+      report.recordChangesets(generation, database.countRows(
+          schemaName == null ? null : schemaName.toLowerCase(Locale.ROOT),
+          tableName == null
+              ? LIQUIBASE_DEFAULT_CHANGELOG_TABLE_NAME
+              : tableName.toLowerCase(Locale.ROOT)));
+    } catch (SQLException ex) {
+      getLog().debug("Unable to count changesets of " + generation.describe(), ex);
+    }
+  }
+
+  private void recordOutcome(Generation generation, GenerationReport.Status status) {
+    Xpp3Dom jooqConfiguration = generation.jooqConfiguration();
+    Path packageDirectory =
+        jooqTargetPackageDirectory(jooqConfiguration, jooqTargetDirectory(jooqConfiguration));
+    try {
+      report.recordOutcome(generation, status, packageDirectory);
+    } catch (IOException ex) {
+      getLog().warn("Unable to measure generated sources in " + packageDirectory, ex);
+    }
+  }
+
+  private void writeReport() {
+    report.summary().forEach(getLog()::info);
+    Path reportFile = executionWorkDirectory().resolve(REPORT_FILE_NAME);
+    try {
+      report.write(reportFile);
+    } catch (IOException ex) {
+      getLog().warn("Unable to write " + reportFile, ex);
+    }
+  }
+
+  private void generateInIsolatedDatabase(Generation generation, PostgresDatabase server)
+      throws MojoExecutionException {
+    Xpp3Dom liquibaseConfiguration = generation.liquibaseConfiguration();
+    String databaseName = ISOLATED_DATABASE_NAME_PREFIX
+        + UUID.randomUUID().toString().replace("-", "");
+    List<String> prefixKeys = templateSnapshotsEnabled()
+        ? snapshotPrefixKeys(liquibaseConfiguration)
+        : List.of();
+    TemplateSnapshots snapshots = new TemplateSnapshots(server, maxTemplateSnapshots);
+    PostgresDatabase database = createDatabase(server, databaseName, snapshots, prefixKeys);
+    try {
+      migrate(liquibaseConfiguration, server, database, snapshots, prefixKeys);
+      countChangesets(generation, database);
+      runJooq(generation, database);
+    } finally {
+      try {
+        server.dropDatabase(databaseName);
+      } catch (SQLException ex) {
+        getLog().warn("Unable to drop database " + databaseName, ex);
+      }
+    }
+  }
+
+  private PostgresDatabase createDatabase(PostgresDatabase server, String databaseName,
+      TemplateSnapshots snapshots, List<String> prefixKeys) throws MojoExecutionException {
+    try {
+      String snapshot = prefixKeys.isEmpty() ? null : snapshots.findLongest(prefixKeys);
+      if (snapshot != null) {
+        getLog().info("Database is created from the template snapshot " + snapshot);
+        return server.createDatabase(databaseName, snapshot);
+      }
+    } catch (SQLException ex) {
+      getLog().warn("Unable to create database from the template snapshot", ex);
+    }
+    try {
+      return server.createDatabase(databaseName);
+    } catch (SQLException ex) {
+      throw new MojoExecutionException("Unable to create database " + databaseName, ex);
+    }
+  }
+
+  private void migrate(Xpp3Dom liquibaseConfiguration, PostgresDatabase server,
+      PostgresDatabase database, TemplateSnapshots snapshots, List<String> prefixKeys)
+      throws MojoExecutionException {
+    try {
+      runLiquibase(liquibaseConfiguration, database);
+    } catch (MojoExecutionException ex) {
+      if (prefixKeys.isEmpty()) {
+        throw ex;
+      }
+      // the snapshot could be inconsistent with the changelogs, e.g. if they were changed in a way
+      // the prefix keys can't detect, so the migration is retried from scratch
+      getLog().warn("Migration of the database created from the template snapshot failed, "
+          + "the database is migrated from scratch", ex);
+      try {
+        server.dropDatabase(database.databaseName());
+        server.createDatabase(database.databaseName());
+      } catch (SQLException sqlEx) {
+        throw new MojoExecutionException(
+            "Unable to recreate database " + database.databaseName(), sqlEx);
+      }
+      runLiquibase(liquibaseConfiguration, database);
+    }
+    if (!prefixKeys.isEmpty()) {
+      // liquibase migrates the whole graph at once, so only the whole graph is snapshotted
+      try {
+        snapshots.create(prefixKeys.get(prefixKeys.size() - 1), database.databaseName());
+      } catch (SQLException ex) {
+        getLog().warn("Unable to create the template snapshot of the migrated database", ex);
+      }
+    }
+  }
+
+  private List<String> snapshotPrefixKeys(Xpp3Dom liquibaseConfiguration) {
+    Xpp3Dom changeLogFile = liquibaseConfiguration.getChild("changeLogFile");
+    if (changeLogFile == null || changeLogFile.getValue() == null) {
+      getLog().warn("Changelog file is not configured, template snapshots are disabled");
+      return List.of();
+    }
+    String seed = new Fingerprint()
+        .add(postgresDockerImageName)
+        .add(liquibaseMavenPluginVersion)
+        .add(withoutBasedir(liquibaseConfiguration.toString()))
+        .toHex();
+    try {
+      return ChangelogGraph.resolve(changeLogFile.getValue().trim(), changelogRoots())
+          .prefixKeys(seed);
+    } catch (IOException ex) {
+      getLog().warn("Unable to resolve changelogs, template snapshots are disabled", ex);
+      return List.of();
+    }
+  }
+
+  private PostgresServer startPostgresServer(PostgresContainerSettings settings) {
+    if (DOCKER_POSTGRES_PROVIDER.equals(postgresProvider)) {
+      return new DockerPostgresServer(obtainPostgresContainer(settings));
+    }
+    long started = System.nanoTime();
+    try {
+      PostgresServer server = EmbeddedPostgresServer.start(settings,
+          new EmbeddedPostgresServer.ArtifactBinaryResolver(repositorySystem,
+              session.getRepositorySession(), project.getRemoteProjectRepositories(),
+              embeddedPostgresVersion));
+      report.record(GenerationReport.Phase.CONTAINER_START, System.nanoTime() - started);
+      return server;
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Unable to start embedded postgres", ex);
+    }
+  }
+
+  /**
+   * Returns the container started in the background if the plugin is loaded as an extension,
+   * otherwise starts the container.
+   */
+  private PostgreSQLContainer<?> obtainPostgresContainer(PostgresContainerSettings settings) {
+    Future<PostgreSQLContainer<?>> early = EarlyPostgresContainers.claim(settings.key());
+    if (early != null) {
+      long started = System.nanoTime();
+      try {
+        PostgreSQLContainer<?> postgres = early.get();
+        report.record(GenerationReport.Phase.EARLY_START_WAIT, System.nanoTime() - started);
+        return postgres;
+      } catch (ExecutionException ex) {
+        getLog().warn("Postgres container failed to start in the background, it is restarted",
+            ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Waiting for the postgres container is interrupted", ex);
+      }
+    }
+    return startPostgresContainer(settings);
+  }
+
+  private PostgreSQLContainer<?> startPostgresContainer(PostgresContainerSettings settings) {
+    PostgreSQLContainer<?> postgres = settings.newContainer(report);
+    long started = System.nanoTime();
+    // resolving the image name pulls the image if it is absent
+    postgres.getDockerImageName();
+    report.record(GenerationReport.Phase.IMAGE_PULL, System.nanoTime() - started);
+    long readinessNanos = report.elapsedNanos(GenerationReport.Phase.JDBC_READINESS);
+    started = System.nanoTime();
+    try {
+      postgres.start();
+    } catch (RuntimeException ex) {
+      postgres.close();
+      throw ex;
+    }
+    // the readiness is awaited as part of the start, but it is reported separately
+    report.record(GenerationReport.Phase.CONTAINER_START, System.nanoTime() - started
+        - (report.elapsedNanos(GenerationReport.Phase.JDBC_READINESS) - readinessNanos));
+    return postgres;
+  }
+
+  private GenerationCache cache() {
+    return new GenerationCache(
+        cacheDirectory.toPath(),
+        cacheMaxSizeMegabytes * 1024 * 1024,
+        Duration.ofDays(cacheMaxAgeDays));
+  }
+
+  private boolean restoreFromCache(String fingerprint, Path packageDirectory) {
+    try {
+      return cache().restore(fingerprint, packageDirectory);
+    } catch (IOException ex) {
+      getLog().warn("Unable to restore generated sources from " + cacheDirectory, ex);
+      return false;
+    }
+  }
+
+  private void storeToCache(String fingerprint, Path packageDirectory) {
+    if (!Files.isDirectory(packageDirectory)) {
+      getLog().warn(packageDirectory + " doesn't exist, generated sources are not cached");
+      return;
+    }
+    try {
+      GenerationCache cache = cache();
+      cache.store(fingerprint, packageDirectory);
+      cache.evict();
+    } catch (IOException ex) {
+      getLog().warn("Unable to store generated sources to " + cacheDirectory, ex);
+    }
+  }
+
+  private Path executionWorkDirectory() {
+    return workDirectory.toPath().resolve(mojoExecution.getExecutionId());
+  }
+
+  private Path workDirectory(Generation generation) {
+    Path directory = executionWorkDirectory();
+    return generation.id() == null ? directory : directory.resolve(generation.id());
+  }
+
+  private Path jooqTargetDirectory(Xpp3Dom jooqConfiguration) {
+    return jooqTargetDirectory(project, jooqConfiguration);
+  }
+
+  static Path jooqTargetDirectory(MavenProject project, Xpp3Dom jooqConfiguration) {
+    Xpp3Dom generator = jooqConfiguration.getChild("generator");
+    Xpp3Dom target = generator == null ? null : generator.getChild("target");
+    Xpp3Dom directory = target == null ? null : target.getChild("directory");
+    if (directory == null || directory.getValue() == null || directory.getValue().isBlank()) {
+      return Path.of(project.getBuild().getDirectory(), JOOQ_DEFAULT_TARGET_DIRECTORY);
+    }
+    Path path = Path.of(directory.getValue().trim());
+    return path.isAbsolute() ? path : project.getBasedir().toPath().resolve(path);
+  }
+
+  static Path jooqTargetPackageDirectory(Xpp3Dom jooqConfiguration, Path targetDirectory) {
+    Xpp3Dom generator = jooqConfiguration.getChild("generator");
+    Xpp3Dom target = generator == null ? null : generator.getChild("target");
+    Xpp3Dom packageName = target == null ? null : target.getChild("packageName");
+    String name = packageName == null || packageName.getValue() == null
+        || packageName.getValue().isBlank()
+        ? JOOQ_DEFAULT_TARGET_PACKAGE_NAME
+        : packageName.getValue().trim();
+    return targetDirectory.resolve(name.replace('.', '/'));
+  }
+
+  private String fingerprint(Generation generation) {
+    try {
+      String fingerprint = Fingerprint.ofGeneration(generation, versions(),
+          project.getBasedir().toPath(), changelogRoots());
+      if (fingerprint == null) {
+        getLog().warn("Changelog file is not configured, incremental generation is disabled");
+      }
+      return fingerprint;
+    } catch (IOException ex) {
+      getLog().warn("Unable to fingerprint changelogs, incremental generation is disabled", ex);
+      return null;
+    }
+  }
+
+  private List<String> versions() {
+    return List.of(postgresDockerImageName, postgresJdbcDriverVersion,
+        liquibaseMavenPluginVersion, jooqCodegenMavenPluginVersion);
+  }
+
+  /**
+   * Reads the versions of the tools from the plugin configuration the same way
+   * {@link #versions()} are injected, so the generation can be fingerprinted before the mojo is
+   * configured.
+   *
+   * @param configuration plugin configuration
+   * @return versions of the tools the generation is run with
+   */
+  static List<String> versions(Xpp3Dom configuration) {
+    return List.of(
+        configurationValue(configuration, "postgresDockerImageName",
+            PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME),
+        configurationValue(configuration, "postgresJdbcDriverVersion",
+            DEFAULT_POSTGRES_JDBC_DRIVER_VERSION),
+        configurationValue(configuration, "liquibaseMavenPluginVersion",
+            DEFAULT_LIQUIBASE_MAVEN_PLUGIN_VERSION),
+        configurationValue(configuration, "jooqCodegenMavenPluginVersion",
+            DEFAULT_JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION));
+  }
+
+  static String configurationValue(Xpp3Dom configuration, String name, String defaultValue) {
+    Xpp3Dom child = configuration.getChild(name);
+    return child == null || child.getValue() == null || child.getValue().isBlank()
+        ? defaultValue
+        : child.getValue().trim();
+  }
+
+  /**
+   * Makes the fingerprint independent of the project location, so it can be used as a key of
+   * the cache shared by projects.
+   */
+  private String withoutBasedir(String value) {
+    return value.replace(project.getBasedir().getAbsolutePath(), "${basedir}");
+  }
+
+  /**
+   * Prepares the changelogs of the generations to be found by liquibase.
+   *
+   * @param generations generations to be run
+   * @throws MojoExecutionException if the changelogs can't be prepared
+   */
+  abstract void prepareChangelogs(List<Generation> generations) throws MojoExecutionException;
+
+  /**
+   * Returns the directories the changelogs are looked up in to fingerprint them, the directories
+   * must match the way the changelogs are provided to liquibase.
+   *
+   * @return directories in the order of precedence
+   */
+  List<Path> changelogRoots() {
+    List<Path> roots = new ArrayList<>();
+    roots.add(Path.of(project.getBuild().getOutputDirectory()));
+    roots.addAll(sourceChangelogRoots(project));
+    return roots;
+  }
+
+  /**
+   * Returns the directories the changelogs are looked up in before the resources are processed.
+   *
+   * @param project project of the changelogs
+   * @return resource directories followed by the base directory
+   */
+  static List<Path> sourceChangelogRoots(MavenProject project) {
+    List<Path> roots = new ArrayList<>();
+    for (Resource resource : project.getResources()) {
+      roots.add(Path.of(resource.getDirectory()));
+    }
+    roots.add(project.getBasedir().toPath());
+    return roots;
+  }
+
+  /**
+   * Checks the fingerprint file against the fingerprint and the sources it was written for, the
+   * package directory of the generation is checked, since the target directory can be shared by
+   * the generations and other generators.
+   *
+   * @param fingerprintFile file with the fingerprint of the previous generation
+   * @param fingerprint current fingerprint
+   * @param packageDirectory target package directory of the generation
+   * @return whether the fingerprint is unchanged and the generated sources exist
+   */
+  static boolean isUpToDate(Path fingerprintFile, String fingerprint, Path packageDirectory) {
+    try {
+      return Files.isRegularFile(fingerprintFile)
+          && fingerprint.equals(Files.readString(fingerprintFile, StandardCharsets.UTF_8).trim())
+          && isNotEmptyDirectory(packageDirectory);
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  private static boolean isNotEmptyDirectory(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return false;
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.findAny().isPresent();
+    }
+  }
+
+  private static void deleteFingerprint(Path fingerprintFile) throws MojoExecutionException {
+    try {
+      Files.deleteIfExists(fingerprintFile);
+    } catch (IOException ex) {
+      throw new MojoExecutionException("Unable to delete " + fingerprintFile, ex);
+    }
+  }
+
+  private static void writeFingerprint(Path fingerprintFile, String fingerprint)
+      throws MojoExecutionException {
+    try {
+      Files.createDirectories(fingerprintFile.getParent());
+      Files.writeString(fingerprintFile, fingerprint, StandardCharsets.UTF_8);
+    } catch (IOException ex) {
+      throw new MojoExecutionException("Unable to write " + fingerprintFile, ex);
+    }
+  }
+
+  private static Xpp3Dom renameElement(Xpp3Dom element, String newName) {
+    if (newName.equals(element.getName())) {
+      return element;
+    }
+    return new Xpp3Dom(element, newName);
+  }
+
+  private static Plugin liquibaseMavenPlugin(String liquibaseMavenPluginVersion,
+      String postgresJdbcDriverVersion) {
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("org.liquibase");
+    plugin.setArtifactId("liquibase-maven-plugin");
+    plugin.setVersion(liquibaseMavenPluginVersion);
+    plugin.setDependencies(List.of(postgresJdbcDriverDependency(postgresJdbcDriverVersion)));
+    return plugin;
+  }
+
+  private static Dependency postgresJdbcDriverDependency(String version) {
+    Dependency dependency = new Dependency();
+    dependency.setGroupId("org.postgresql");
+    dependency.setArtifactId("postgresql");
+    dependency.setVersion(version);
+    return dependency;
+  }
+
+  private static Plugin jooqCodegenMavenPlugin(String jooqCodegenMavenPluginVersion,
+      String postgresJdbcDriverVersion) {
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("org.jooq");
+    plugin.setArtifactId("jooq-codegen-maven");
+    plugin.setVersion(jooqCodegenMavenPluginVersion);
+    plugin.setDependencies(List.of(postgresJdbcDriverDependency(postgresJdbcDriverVersion)));
+    return plugin;
+  }
+
+  /**
+   * Returns the copy of the configuration with the connection values, the configuration itself is
+   * kept intact since the mojo executor merges the defaults of the executed mojo into it.
+   */
+  private static Xpp3Dom setLiquibaseDbConnectionValues(Xpp3Dom liquibaseConfiguration,
+      PostgresDatabase postgres) {
+    Xpp3Dom configuration = new Xpp3Dom(liquibaseConfiguration);
+    getOrCreateChild(configuration, "driver").setValue(POSTGRES_DRIVER_NAME);
+    getOrCreateChild(configuration, "url").setValue(postgres.jdbcUrl());
+    getOrCreateChild(configuration, "username").setValue(postgres.username());
+    getOrCreateChild(configuration, "password").setValue(postgres.password());
+    return configuration;
+  }
+
+  /**
+   * Returns the copy of the configuration with the connection values, see
+   * {@link #setLiquibaseDbConnectionValues(Xpp3Dom, PostgresDatabase)}.
+   */
+  private static Xpp3Dom setJooqDbConnectionValues(Xpp3Dom jooqConfiguration,
+      PostgresDatabase postgres) {
+    Xpp3Dom configuration = new Xpp3Dom(jooqConfiguration);
+    Xpp3Dom generator = getOrCreateChild(configuration, "generator");
+    Xpp3Dom database = getOrCreateChild(generator, "database");
+    Xpp3Dom databaseName = getOrCreateChild(database, "name");
+    databaseName.setValue(JOOQ_POSTGRES_META);
+    Xpp3Dom jdbc = getOrCreateChild(configuration, "jdbc");
+    getOrCreateChild(jdbc, "driver").setValue(POSTGRES_DRIVER_NAME);
+    getOrCreateChild(jdbc, "url").setValue(postgres.jdbcUrl());
+    getOrCreateChild(jdbc, "username").setValue(postgres.username());
+    getOrCreateChild(jdbc, "password").setValue(postgres.password());
+    return configuration;
+  }
+
+  private static String childValue(Xpp3Dom element, String childName) {
+    Xpp3Dom child = element.getChild(childName);
+    return child == null || child.getValue() == null || child.getValue().isBlank()
+        ? null
+        : child.getValue().trim();
+  }
+
+  private static Xpp3Dom getOrCreateChild(Xpp3Dom element, String childName) {
+    Xpp3Dom child = element.getChild(childName);
+    if (child != null) {
+      return child;
+    }
+    child = new Xpp3Dom(childName);
+    element.addChild(child);
+    return child;
+  }
+
+  /**
+   * Action run against the running postgres server.
+   */
+  @FunctionalInterface
+  interface PostgresServerAction {
+
+    void run(PostgresServer server) throws MojoExecutionException;
+
+  }
+
+}
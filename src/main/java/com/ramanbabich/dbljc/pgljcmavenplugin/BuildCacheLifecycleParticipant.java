@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Declares the changelogs of the generations as the inputs of the project to the maven build
+ * cache extension right after the projects are read, the extension reads the extra input paths
+ * from the {@value #CACHE_INPUT_PROPERTY_PREFIX}* project properties. Is active only if the
+ * plugin is declared with {@code <extensions>true</extensions>}. The build cache is disabled for
+ * the project whose changelogs can't be resolved completely, as its inputs are unknown.
+ *
+ * @author Raman Babich
+ */
+@Named("pgljc-build-cache")
+@Singleton
+public class BuildCacheLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+  static final String CACHE_INPUT_PROPERTY_PREFIX = "maven.build.cache.input.pgljc.";
+  static final String CACHE_ENABLED_PROPERTY = "maven.build.cache.enabled";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+      BuildCacheLifecycleParticipant.class);
+
+  private static final String THIS_PLUGIN_KEY = "com.ramanbabich.dbljc:pgljc-maven-plugin";
+
+  @Override
+  public void afterProjectsRead(MavenSession session) {
+    for (MavenProject project : session.getProjects()) {
+      Plugin plugin = project.getPlugin(THIS_PLUGIN_KEY);
+      if (plugin == null) {
+        continue;
+      }
+      try {
+        List<Path> inputs = inputs(project, plugin);
+        for (int i = 0; i < inputs.size(); ++i) {
+          project.getProperties().setProperty(CACHE_INPUT_PROPERTY_PREFIX + (i + 1),
+              inputs.get(i).toString());
+        }
+        LOGGER.debug("Generation inputs of {} are declared to the build cache: {}",
+            project.getId(), inputs);
+      } catch (MojoExecutionException | IOException ex) {
+        project.getProperties().setProperty(CACHE_ENABLED_PROPERTY, Boolean.FALSE.toString());
+        LOGGER.warn("Unable to declare generation inputs of {}, the build cache is disabled "
+            + "for it: {}", project.getId(), ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Collects the changelog roots and the changelog files and {@code includeAll} directories the
+   * generations of every execution resolve, the same way the incremental generation resolves
+   * them. The base directory is not the input as a whole, only the changelogs found in it are.
+   * The plugin configuration, e.g. the docker image name and the tool versions, is the part of
+   * the effective pom the extension hashes anyway.
+   */
+  private static List<Path> inputs(MavenProject project, Plugin plugin)
+      throws MojoExecutionException, IOException {
+    Xpp3Dom pluginConfiguration = plugin.getConfiguration() == null
+        ? new Xpp3Dom("configuration")
+        : (Xpp3Dom) plugin.getConfiguration();
+    List<Xpp3Dom> configurations = new ArrayList<>();
+    for (PluginExecution execution : plugin.getExecutions()) {
+      configurations.add(execution.getConfiguration() == null
+          ? pluginConfiguration
+          : Xpp3Dom.mergeXpp3Dom(new Xpp3Dom((Xpp3Dom) execution.getConfiguration()),
+              new Xpp3Dom(pluginConfiguration)));
+    }
+    if (configurations.isEmpty()) {
+      configurations.add(pluginConfiguration);
+    }
+    Path basedir = project.getBasedir().toPath();
+    List<Path> changelogRoots = AbstractGenerateMojo.sourceChangelogRoots(project);
+    Set<Path> inputs = new LinkedHashSet<>();
+    for (Path root : changelogRoots) {
+      if (!root.equals(basedir) && Files.isDirectory(root)) {
+        inputs.add(root);
+      }
+    }
+    for (Xpp3Dom configuration : configurations) {
+      for (Generation generation : AbstractGenerateMojo.generations(configuration)) {
+        ChangelogGraph graph = ChangelogGraph.ofGeneration(generation, changelogRoots);
+        if (graph == null) {
+          continue;
+        }
+        graph.checkComplete();
+        for (ChangelogGraph.Node node : graph.getNodes()) {
+          inputs.add(node.path());
+        }
+        inputs.addAll(graph.getDirectories());
+      }
+    }
+    return new ArrayList<>(inputs);
+  }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Files reachable from a liquibase changelog through {@code include}, {@code includeAll} and
+ * {@code sqlFile} references, in the order they are included.
+ *
+ * <p>References are looked up with a lightweight text scan that understands xml, yaml, json and
+ * formatted sql changelogs, so the graph may contain a few more files than liquibase actually
+ * reads. References that can't be resolved under the roots, e.g. the ones with property
+ * placeholders or located in dependency jars, are collected as unresolved, the graph that has
+ * any of them is incomplete and can't be used to decide whether the changelog has changed.
+ *
+ * @author Raman Babich
+ */
+final class ChangelogGraph {
+
+  private static final Pattern REFERENCE_PATTERN = Pattern.compile(
+      "\\b(?:file|path)\\s*=\\s*(?:\"([^\"]+)\"|'([^']+)')"
+          + "|\"(?:file|path)\"\\s*:\\s*\"([^\"]+)\""
+          + "|^[\\s-]*(?:file|path)\\s*:\\s*['\"]?([^'\"\\s#]+)"
+          + "|--include(?:All)?\\s+(?:file|path):(\\S+)",
+      Pattern.MULTILINE);
+  private static final Pattern CHANGE_SET_PATTERN =
+      Pattern.compile("changeset", Pattern.CASE_INSENSITIVE);
+
+  private final List<Node> nodes;
+  private final List<Path> directories;
+  private final List<String> unresolvedReferences;
+
+  private ChangelogGraph(List<Node> nodes, List<Path> directories,
+      List<String> unresolvedReferences) {
+    this.nodes = Collections.unmodifiableList(nodes);
+    this.directories = Collections.unmodifiableList(directories);
+    this.unresolvedReferences = Collections.unmodifiableList(unresolvedReferences);
+  }
+
+  /**
+   * Resolves the graph of the changelog file configured for the generation.
+   *
+   * @param generation generation to resolve the graph of
+   * @param roots directories the changelog and its references are looked up in
+   * @return resolved graph, {@code null} if the changelog file is not configured
+   * @throws IOException if any of the changelog files can't be found or read
+   */
+  static ChangelogGraph ofGeneration(Generation generation, List<Path> roots)
+      throws IOException {
+    Xpp3Dom changeLogFile = generation.liquibaseConfiguration().getChild("changeLogFile");
+    if (changeLogFile == null || changeLogFile.getValue() == null) {
+      return null;
+    }
+    return resolve(changeLogFile.getValue().trim(), roots);
+  }
+
+  /**
+   * Resolves the graph of the changelog the same way liquibase resolves it from classpath.
+   *
+   * @param changeLogFile changelog file as it is specified in the liquibase configuration
+   * @param roots directories the changelog and its references are looked up in
+   * @return resolved graph, the first node is always the changelog itself
+   * @throws NoSuchFileException if the changelog can't be found under any of the roots
+   * @throws IOException if any of the changelog files can't be read
+   */
+  static ChangelogGraph resolve(String changeLogFile, List<Path> roots) throws IOException {
+    Path changelog = find(changeLogFile, null, roots);
+    if (changelog == null) {
+      throw new NoSuchFileException(changeLogFile);
+    }
+    List<Node> nodes = new ArrayList<>();
+    List<Path> directories = new ArrayList<>();
+    List<String> unresolvedReferences = new ArrayList<>();
+    visit(changelog, null, roots, new HashSet<>(), nodes, directories, unresolvedReferences);
+    return new ChangelogGraph(nodes, directories, unresolvedReferences);
+  }
+
+  List<Node> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the directories included with {@code includeAll}, the files added to them later
+   * become the part of the graph.
+   */
+  List<Path> getDirectories() {
+    return directories;
+  }
+
+  /**
+   * Returns the references that can't be resolved under the roots, each one is followed by the
+   * name of the file it is found in.
+   */
+  List<String> getUnresolvedReferences() {
+    return unresolvedReferences;
+  }
+
+  /**
+   * Checks that all the references are resolved, so the graph contains every file liquibase
+   * reads.
+   *
+   * @throws IOException if any of the references can't be resolved
+   */
+  void checkComplete() throws IOException {
+    if (!unresolvedReferences.isEmpty()) {
+      throw new IOException("Changelog references can't be resolved: " + unresolvedReferences);
+    }
+  }
+
+  /**
+   * Computes the keys of the graph prefixes, the key of the prefix is changed only if any of the
+   * changesets it consists of is changed. Aggregator changelogs, i.e. changelogs that only
+   * include other changelogs, contribute their text only up to the include of each node with
+   * the include targets cut out, so the contexts, labels, filters and properties of the includes
+   * are the part of the keys, while including a new changelog at the end doesn't change the keys
+   * of the existing prefixes.
+   *
+   * @param seed value the keys are derived from, e.g. fingerprint of the liquibase configuration
+   * @return keys of the prefixes, the key at the index {@code i} is the key of the first
+   *     {@code i + 1} nodes
+   * @throws IOException if any of the references can't be resolved or any of the changelog
+   *     files can't be read
+   */
+  List<String> prefixKeys(String seed) throws IOException {
+    checkComplete();
+    List<String> keys = new ArrayList<>(nodes.size());
+    String key = seed;
+    for (Node node : nodes) {
+      Fingerprint fingerprint = new Fingerprint().add(key).add(node.name());
+      if (node.context() != null) {
+        fingerprint.add(node.context());
+      }
+      if (!node.aggregator()) {
+        fingerprint.add(node.path());
+      }
+      key = fingerprint.toHex();
+      keys.add(key);
+    }
+    return keys;
+  }
+
+  private static void visit(Path file, String context, List<Path> roots, Set<Path> visited,
+      List<Node> nodes, List<Path> directories, List<String> unresolvedReferences)
+      throws IOException {
+    if (!visited.add(file)) {
+      return;
+    }
+    String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    Matcher matcher = REFERENCE_PATTERN.matcher(content);
+    boolean aggregator = !CHANGE_SET_PATTERN.matcher(content).find() && matcher.find();
+    matcher.reset();
+    nodes.add(new Node(name(file, roots), file, aggregator, context));
+    StringBuilder includes = new StringBuilder();
+    int includesEnd = 0;
+    while (matcher.find()) {
+      int group = referenceGroup(matcher);
+      String reference = matcher.group(group);
+      String childContext = null;
+      if (aggregator) {
+        if (includesEnd <= matcher.start(group)) {
+          includes.append(content, includesEnd, matcher.start(group));
+          includesEnd = matcher.end(group);
+        }
+        int statementEnd = statementEnd(file, content, matcher.start(group), matcher.end(group));
+        if (includesEnd < statementEnd) {
+          includes.append(content, includesEnd, statementEnd);
+          includesEnd = statementEnd;
+        }
+        childContext = includes.toString();
+      }
+      Path referenced = reference.contains("${")
+          ? null
+          : find(reference, file.getParent(), roots);
+      if (referenced == null) {
+        unresolvedReferences.add(reference + " in " + name(file, roots));
+        continue;
+      }
+      if (Files.isDirectory(referenced)) {
+        directories.add(referenced);
+        for (Path child : listFiles(referenced)) {
+          visit(child, childContext, roots, visited, nodes, directories, unresolvedReferences);
+        }
+      } else {
+        visit(referenced, childContext, roots, visited, nodes, directories,
+            unresolvedReferences);
+      }
+    }
+  }
+
+  private static int referenceGroup(Matcher matcher) {
+    for (int i = 1; i <= matcher.groupCount(); ++i) {
+      if (matcher.group(i) != null) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Reference pattern matched without any group");
+  }
+
+  /**
+   * Finds the end of the include statement the reference is located in: the end of the xml tag,
+   * of the json object, of the yaml list item or of the line for other formats.
+   */
+  private static int statementEnd(Path file, String content, int referenceStart,
+      int referenceEnd) {
+    String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (fileName.endsWith(".xml")) {
+      return indexAfter(content, '>', referenceEnd);
+    }
+    if (fileName.endsWith(".json")) {
+      return indexAfter(content, '}', referenceEnd);
+    }
+    int lineEnd = indexAfter(content, '\n', referenceEnd);
+    if (!fileName.endsWith(".yaml") && !fileName.endsWith(".yml")) {
+      return lineEnd;
+    }
+    int itemStart = content.lastIndexOf('\n', referenceStart - 1) + 1;
+    while (itemStart > 0 && content.charAt(itemStart + indent(content, itemStart)) != '-') {
+      itemStart = content.lastIndexOf('\n', itemStart - 2) + 1;
+    }
+    int itemIndent = indent(content, itemStart);
+    int end = lineEnd;
+    while (end < content.length()) {
+      int nextLineEnd = indexAfter(content, '\n', end);
+      String line = content.substring(end, nextLineEnd);
+      if (!line.isBlank() && indent(content, end) <= itemIndent) {
+        break;
+      }
+      end = nextLineEnd;
+    }
+    return end;
+  }
+
+  private static int indexAfter(String content, char character, int from) {
+    int index = content.indexOf(character, from);
+    return index < 0 ? content.length() : index + 1;
+  }
+
+  private static int indent(String content, int lineStart) {
+    int index = lineStart;
+    while (index < content.length() && (content.charAt(index) == ' '
+        || content.charAt(index) == '\t')) {
+      ++index;
+    }
+    return index - lineStart;
+  }
+
+  private static Path find(String reference, Path relativeTo, List<Path> roots) {
+    String relative = reference.replaceFirst("^classpath:", "").replaceFirst("^/+", "");
+    if (relative.isEmpty()) {
+      return null;
+    }
+    List<Path> candidates = new ArrayList<>();
+    if (relativeTo != null) {
+      candidates.add(relativeTo.resolve(relative));
+    }
+    for (Path root : roots) {
+      candidates.add(root.resolve(relative));
+    }
+    for (Path candidate : candidates) {
+      if (Files.exists(candidate)) {
+        return candidate.toAbsolutePath().normalize();
+      }
+    }
+    return null;
+  }
+
+  private static List<Path> listFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile)
+          .map(file -> file.toAbsolutePath().normalize())
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static String name(Path file, List<Path> roots) {
+    for (Path root : roots) {
+      Path normalizedRoot = root.toAbsolutePath().normalize();
+      if (file.startsWith(normalizedRoot)) {
+        return normalizedRoot.relativize(file).toString().replace('\\', '/');
+      }
+    }
+    return file.toString().replace('\\', '/');
+  }
+
+  /**
+   * Changelog graph node.
+   *
+   * @param name path of the file relative to the root it was found in
+   * @param path absolute path of the file
+   * @param aggregator whether the file only includes other files and has no changesets
+   * @param context text of the aggregator that includes the file up to the include statement
+   *     with the include targets cut out, {@code null} if the file is not included by an
+   *     aggregator
+   */
+  record Node(String name, Path path, boolean aggregator, String context) {
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directories of the changelogs for the changes. Editors usually save a file with a
+ * few writes, so the changes are collected until the directories are quiet for a while.
+ *
+ * @author Raman Babich
+ */
+final class ChangelogWatcher implements AutoCloseable {
+
+  private final WatchService watchService;
+  private final Map<Path, WatchKey> keys = new HashMap<>();
+
+  ChangelogWatcher() throws IOException {
+    this.watchService = FileSystems.getDefault().newWatchService();
+  }
+
+  /**
+   * Watches exactly the given directories, the directories that are not given anymore, e.g.
+   * because the changelogs were moved, are not watched.
+   *
+   * @param directories directories to watch, the missing ones are skipped
+   * @throws IOException if any of the directories can't be watched
+   */
+  void watch(Set<Path> directories) throws IOException {
+    for (Iterator<Map.Entry<Path, WatchKey>> it = keys.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<Path, WatchKey> entry = it.next();
+      if (!directories.contains(entry.getKey())) {
+        entry.getValue().cancel();
+        it.remove();
+      }
+    }
+    for (Path directory : directories) {
+      if (!keys.containsKey(directory) && Files.isDirectory(directory)) {
+        keys.put(directory, directory.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE));
+      }
+    }
+  }
+
+  /**
+   * Waits for the changes and then for the quiet period after the last change. Hidden files and
+   * backup files of the editors are ignored.
+   *
+   * @param quietPeriod period without changes the changes are considered complete after
+   * @return changed files, the directory itself if its events were lost
+   * @throws InterruptedException if the waiting is interrupted
+   */
+  Set<Path> awaitChanges(Duration quietPeriod) throws InterruptedException {
+    Set<Path> changes = new TreeSet<>();
+    while (changes.isEmpty()) {
+      WatchKey key = watchService.take();
+      while (key != null) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            changes.add(directory);
+          } else if (!isIgnored((Path) event.context())) {
+            changes.add(directory.resolve((Path) event.context()));
+          }
+        }
+        key.reset();
+        key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+      }
+    }
+    return changes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+  private static boolean isIgnored(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(".") || name.endsWith("~") || name.endsWith(".swp");
+  }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Makes the target directory the same as the source one touching only the files that differ, so
+ * the unchanged files keep their modification time and incremental compilation downstream
+ * doesn't see them as changed. Files are compared and moved in parallel.
+ *
+ * @author Raman Babich
+ */
+final class DirectorySync {
+
+  private DirectorySync() {
+  }
+
+  /**
+   * Moves the changed and the new files from the source directory to the target one and deletes
+   * the target files absent in the source directory.
+   *
+   * @param source directory with the fresh files, the moved files are removed from it
+   * @param target directory to sync
+   * @return number of the written, the unchanged and the deleted files and the written bytes
+   * @throws IOException if any of the directories can't be read or modified
+   */
+  static Result sync(Path source, Path target) throws IOException {
+    Set<Path> sourceFiles = relativeFiles(source);
+    Set<Path> targetFiles = relativeFiles(target);
+    AtomicInteger written = new AtomicInteger();
+    AtomicLong writtenBytes = new AtomicLong();
+    AtomicInteger deleted = new AtomicInteger();
+    try {
+      sourceFiles.parallelStream().forEach(file -> {
+        long bytes = syncFile(source.resolve(file), target.resolve(file));
+        if (bytes >= 0) {
+          written.incrementAndGet();
+          writtenBytes.addAndGet(bytes);
+        }
+      });
+      targetFiles.parallelStream()
+          .filter(file -> !sourceFiles.contains(file))
+          .forEach(file -> {
+            delete(target.resolve(file));
+            deleted.incrementAndGet();
+          });
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+    deleteEmptyDirectories(target);
+    return new Result(written.get(), writtenBytes.get(), sourceFiles.size() - written.get(),
+        deleted.get());
+  }
+
+  private static Set<Path> relativeFiles(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return Set.of();
+    }
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths.filter(Files::isRegularFile)
+          .map(directory::relativize)
+          .collect(Collectors.toUnmodifiableSet());
+    }
+  }
+
+  /**
+   * Moves the source file over the target one unless they have the same content.
+   *
+   * @return size of the written target file, {@code -1} if it is unchanged
+   */
+  private static long syncFile(Path source, Path target) {
+    try {
+      long size = Files.size(source);
+      if (Files.isRegularFile(target) && Files.size(target) == size
+          && Files.mismatch(source, target) == -1L) {
+        return -1L;
+      }
+      Files.createDirectories(target.getParent());
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+      return size;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static void deleteEmptyDirectories(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    List<Path> directories;
+    try (Stream<Path> paths = Files.walk(directory)) {
+      directories = paths.filter(Files::isDirectory)
+          .filter(path -> !path.equals(directory))
+          .sorted(Comparator.reverseOrder())
+          .toList();
+    }
+    for (Path path : directories) {
+      try (Stream<Path> children = Files.list(path)) {
+        if (children.findAny().isEmpty()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Outcome of the sync.
+   *
+   * @param written number of the new and the changed files
+   * @param writtenBytes size of the new and the changed files
+   * @param unchanged number of the files with the same content
+   * @param deleted number of the obsolete files
+   */
+  record Result(int written, long writtenBytes, int unchanged, int deleted) {
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Postgres server run in the docker container.
+ *
+ * @param container started container
+ * @author Raman Babich
+ */
+record DockerPostgresServer(PostgreSQLContainer<?> container) implements PostgresServer {
+
+  @Override
+  public PostgresDatabase database() {
+    return PostgresDatabase.of(container);
+  }
+
+  @Override
+  public void close() {
+    container.close();
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Postgres containers started in the background before the executions need them. Every started
+ * container is handed over to one execution, and as long as more executions are expected, the
+ * next container is started in the background as soon as the previous one is handed over.
+ *
+ * @author Raman Babich
+ */
+final class EarlyPostgresContainers {
+
+  private static final Map<String, Entry> ENTRIES = new HashMap<>();
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "pgljc-early-postgres");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private EarlyPostgresContainers() {
+  }
+
+  /**
+   * Starts the container in the background.
+   *
+   * @param key key of the container, see {@link PostgresContainerSettings#key()}
+   * @param executions number of the executions expected to claim the container
+   * @param reusable whether the container is kept running even if it is never claimed
+   * @param starter creates and starts the container
+   */
+  static synchronized void expect(String key, int executions, boolean reusable,
+      Supplier<PostgreSQLContainer<?>> starter) {
+    if (executions <= 0 || ENTRIES.containsKey(key)) {
+      return;
+    }
+    Entry entry = new Entry(starter, executions, reusable);
+    entry.startNext();
+    ENTRIES.put(key, entry);
+  }
+
+  /**
+   * Hands the container started in the background over to the caller, the caller is responsible
+   * for stopping it.
+   *
+   * @param key key of the container, see {@link PostgresContainerSettings#key()}
+   * @return future of the started container, {@code null} if no container is started for the key
+   */
+  static synchronized Future<PostgreSQLContainer<?>> claim(String key) {
+    Entry entry = ENTRIES.get(key);
+    if (entry == null || entry.next == null) {
+      return null;
+    }
+    Future<PostgreSQLContainer<?>> claimed = entry.next;
+    entry.next = null;
+    if (--entry.remaining > 0) {
+      entry.startNext();
+    }
+    return claimed;
+  }
+
+  /**
+   * Stops the not reusable containers that were started but never claimed, e.g. because the
+   * generation failed, without waiting for them: the container which is still starting is
+   * stopped as soon as it is started, the container which is not starting yet is never started.
+   */
+  static synchronized void stopUnclaimed() {
+    for (Entry entry : ENTRIES.values()) {
+      if (entry.next != null && !entry.reusable) {
+        entry.stopped = true;
+        entry.next.thenAccept(PostgreSQLContainer::close);
+      }
+    }
+    ENTRIES.clear();
+  }
+
+  private static final class Entry {
+
+    private final Supplier<PostgreSQLContainer<?>> starter;
+    private final boolean reusable;
+    private int remaining;
+    private volatile boolean stopped;
+    private CompletableFuture<PostgreSQLContainer<?>> next;
+
+    private Entry(Supplier<PostgreSQLContainer<?>> starter, int remaining, boolean reusable) {
+      this.starter = starter;
+      this.remaining = remaining;
+      this.reusable = reusable;
+    }
+
+    private void startNext() {
+      next = CompletableFuture.supplyAsync(() -> {
+        if (stopped) {
+          throw new CancellationException("Container is no longer needed");
+        }
+        return starter.get();
+      }, EXECUTOR);
+    }
+
+  }
+
+}
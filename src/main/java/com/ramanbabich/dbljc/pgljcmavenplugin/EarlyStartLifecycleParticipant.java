@@ -0,0 +1,223 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Starts the postgres containers in the background right after the projects are read, so the
+ * image pull and the container start overlap with the dependency resolution and the phases
+ * before the generation. No container is started for the executions whose generations are up to
+ * date. Is active only if the plugin is declared with {@code <extensions>true</extensions>}.
+ *
+ * @author Raman Babich
+ */
+@Named("pgljc-early-start")
+@Singleton
+public class EarlyStartLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+      EarlyStartLifecycleParticipant.class);
+
+  private static final String THIS_PLUGIN_KEY = "com.ramanbabich.dbljc:pgljc-maven-plugin";
+  private static final String THIS_PLUGIN_PREFIX = "pgljc";
+  private static final Set<String> GENERATE_GOALS = Set.of("generate", "generate-no-fork");
+  private static final String DOCKER_POSTGRES_PROVIDER = "docker";
+  private static final String DIRECT_EXECUTION_ID = "default-cli";
+  /**
+   * Phases of the default lifecycle that include the generate-sources phase the generate goals
+   * are bound to.
+   */
+  private static final Set<String> GENERATING_PHASES = Set.of(
+      "generate-sources", "process-sources", "generate-resources", "process-resources",
+      "compile", "process-classes", "generate-test-sources", "process-test-sources",
+      "generate-test-resources", "process-test-resources", "test-compile",
+      "process-test-classes", "test", "prepare-package", "package", "pre-integration-test",
+      "integration-test", "post-integration-test", "verify", "install", "deploy");
+
+  @Override
+  public void afterProjectsRead(MavenSession session) {
+    boolean lifecycle = session.getGoals().stream().anyMatch(GENERATING_PHASES::contains);
+    boolean direct = session.getGoals().stream().anyMatch(goal ->
+        goal.startsWith(THIS_PLUGIN_PREFIX + ':') || goal.startsWith(THIS_PLUGIN_KEY + ':'));
+    if (!lifecycle && !direct) {
+      return;
+    }
+    Map<String, PostgresContainerSettings> settings = new LinkedHashMap<>();
+    Map<String, Integer> executions = new LinkedHashMap<>();
+    for (MavenProject project : session.getProjects()) {
+      Plugin plugin = project.getPlugin(THIS_PLUGIN_KEY);
+      if (plugin == null) {
+        continue;
+      }
+      for (Execution execution : executions(plugin, session.getGoals(), lifecycle, direct)) {
+        Xpp3Dom configuration = execution.configuration();
+        if (!DOCKER_POSTGRES_PROVIDER.equals(
+            value(configuration, "postgresProvider", DOCKER_POSTGRES_PROVIDER))) {
+          continue;
+        }
+        if (isUpToDate(project, execution)) {
+          LOGGER.debug("Generations of {} execution {} are up to date", project.getId(),
+              execution.id());
+          continue;
+        }
+        try {
+          PostgresContainerSettings executionSettings = settings(configuration);
+          settings.put(executionSettings.key(), executionSettings);
+          executions.merge(executionSettings.key(), 1, Integer::sum);
+        } catch (MojoExecutionException ex) {
+          LOGGER.debug("Postgres container of {} isn't started early", project.getId(), ex);
+        }
+      }
+    }
+    settings.forEach((key, containerSettings) -> {
+      LOGGER.info("Starting postgres container {} in the background", key);
+      EarlyPostgresContainers.expect(key,
+          containerSettings.reusable() ? 1 : executions.get(key), containerSettings.reusable(),
+          () -> start(containerSettings));
+    });
+  }
+
+  @Override
+  public void afterSessionEnd(MavenSession session) {
+    EarlyPostgresContainers.stopUnclaimed();
+  }
+
+  private static List<Execution> executions(Plugin plugin, List<String> goals,
+      boolean lifecycle, boolean direct) {
+    List<Execution> executions = new ArrayList<>();
+    Xpp3Dom pluginConfiguration = plugin.getConfiguration() == null
+        ? new Xpp3Dom("configuration")
+        : (Xpp3Dom) plugin.getConfiguration();
+    if (lifecycle) {
+      for (PluginExecution execution : plugin.getExecutions()) {
+        execution.getGoals().stream().filter(GENERATE_GOALS::contains).findFirst().ifPresent(
+            goal -> executions.add(new Execution(execution.getId(), goal,
+                execution.getConfiguration() == null
+                    ? pluginConfiguration
+                    : Xpp3Dom.mergeXpp3Dom(new Xpp3Dom((Xpp3Dom) execution.getConfiguration()),
+                        new Xpp3Dom(pluginConfiguration)))));
+      }
+    }
+    if (direct) {
+      for (String goal : goals) {
+        if (goal.startsWith(THIS_PLUGIN_PREFIX + ':') || goal.startsWith(THIS_PLUGIN_KEY + ':')) {
+          String name = goal.substring(goal.lastIndexOf(':') + 1);
+          int separator = name.indexOf('@');
+          executions.add(separator < 0
+              ? new Execution(DIRECT_EXECUTION_ID, name, pluginConfiguration)
+              : new Execution(name.substring(separator + 1), name.substring(0, separator),
+                  pluginConfiguration));
+        }
+      }
+    }
+    return executions;
+  }
+
+  /**
+   * Checks the generations of the execution the same way the generate goals do, the changelogs
+   * are looked up before the resources are processed, so the edited changelogs are noticed.
+   */
+  private static boolean isUpToDate(MavenProject project, Execution execution) {
+    Xpp3Dom configuration = execution.configuration();
+    if (!GENERATE_GOALS.contains(execution.goal())
+        || !Boolean.parseBoolean(value(configuration, "incremental", "true"))) {
+      return false;
+    }
+    List<String> versions = AbstractGenerateMojo.versions(configuration);
+    String workDirectoryValue = value(configuration, "workDirectory", null);
+    Path workDirectory = (workDirectoryValue == null
+        ? Path.of(project.getBuild().getDirectory(),
+            AbstractGenerateMojo.DEFAULT_WORK_DIRECTORY_NAME)
+        : project.getBasedir().toPath().resolve(workDirectoryValue)).resolve(execution.id());
+    try {
+      for (Generation generation : AbstractGenerateMojo.generations(configuration)) {
+        String fingerprint = Fingerprint.ofGeneration(generation, versions,
+            project.getBasedir().toPath(), AbstractGenerateMojo.sourceChangelogRoots(project));
+        Path fingerprintFile = (generation.id() == null
+            ? workDirectory
+            : workDirectory.resolve(generation.id()))
+            .resolve(AbstractGenerateMojo.FINGERPRINT_FILE_NAME);
+        Path packageDirectory = AbstractGenerateMojo.jooqTargetPackageDirectory(
+            generation.jooqConfiguration(),
+            AbstractGenerateMojo.jooqTargetDirectory(project, generation.jooqConfiguration()));
+        if (fingerprint == null
+            || !AbstractGenerateMojo.isUpToDate(fingerprintFile, fingerprint, packageDirectory)) {
+          return false;
+        }
+      }
+      return true;
+    } catch (MojoExecutionException | IOException ex) {
+      LOGGER.debug("Unable to check whether {} is up to date", project.getId(), ex);
+      return false;
+    }
+  }
+
+  private static PostgresContainerSettings settings(Xpp3Dom configuration)
+      throws MojoExecutionException {
+    Xpp3Dom serverOptions = configuration.getChild("postgresServerOptions");
+    List<String> options = new ArrayList<>();
+    if (serverOptions != null) {
+      for (Xpp3Dom option : serverOptions.getChildren()) {
+        options.add(option.getValue());
+      }
+    }
+    return PostgresContainerSettings.of(
+        value(configuration, "postgresDockerImageName",
+            PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME),
+        Boolean.parseBoolean(value(configuration, "ephemeralPostgres", "true")),
+        options,
+        Boolean.parseBoolean(value(configuration, "reuseContainer", "false")));
+  }
+
+  private static String value(Xpp3Dom configuration, String name, String defaultValue) {
+    return AbstractGenerateMojo.configurationValue(configuration, name, defaultValue);
+  }
+
+  private static PostgreSQLContainer<?> start(PostgresContainerSettings settings) {
+    PostgreSQLContainer<?> postgres = settings.newContainer(new GenerationReport());
+    try {
+      postgres.start();
+    } catch (RuntimeException ex) {
+      postgres.close();
+      throw ex;
+    }
+    return postgres;
+  }
+
+  private record Execution(String id, String goal, Xpp3Dom configuration) {
+  }
+
+}
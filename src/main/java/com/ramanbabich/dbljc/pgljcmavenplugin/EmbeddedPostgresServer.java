@@ -0,0 +1,197 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import io.zonky.test.db.postgres.embedded.PgBinaryResolver;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+
+/**
+ * Postgres server run as a child process from the embedded postgres binaries, so neither docker
+ * nor network is needed once the binaries are resolved. Only the binaries artifact of the host
+ * os and architecture is resolved, on the first start. The binaries are extracted once to the
+ * temporary directory and are reused by the next builds.
+ *
+ * @author Raman Babich
+ */
+final class EmbeddedPostgresServer implements PostgresServer {
+
+  static final String DEFAULT_BINARIES_VERSION = "15.3.0";
+
+  private static final String BINARIES_GROUP_ID = "io.zonky.test.postgres";
+  private static final String BINARIES_ARTIFACT_ID_PREFIX = "embedded-postgres-binaries-";
+  private static final String BINARIES_ENTRY_SUFFIX = ".txz";
+  private static final Path ALPINE_RELEASE_FILE = Path.of("/etc/alpine-release");
+  private static final String USERNAME = "postgres";
+  private static final String DATABASE_NAME = "postgres";
+  private static final Path SHARED_MEMORY_DIRECTORY = Path.of("/dev/shm");
+
+  private final EmbeddedPostgres postgres;
+
+  private EmbeddedPostgresServer(EmbeddedPostgres postgres) {
+    this.postgres = postgres;
+  }
+
+  /**
+   * Starts the server from the binaries found in the classpath.
+   *
+   * @param settings settings of the server, the docker image name and reuse are ignored
+   * @return started server
+   * @throws IOException if the server can't be started
+   */
+  static EmbeddedPostgresServer start(PostgresContainerSettings settings) throws IOException {
+    return start(settings, null);
+  }
+
+  /**
+   * Initializes the data directory and starts the server on a random port. The data directory of
+   * the ephemeral server is kept in memory if the shared memory file system is available.
+   *
+   * @param settings settings of the server, the docker image name and reuse are ignored
+   * @param binaryResolver resolver of the binaries, the binaries are looked up in the classpath
+   *     if it is {@code null}
+   * @return started server
+   * @throws IOException if the server can't be started
+   */
+  static EmbeddedPostgresServer start(PostgresContainerSettings settings,
+      PgBinaryResolver binaryResolver) throws IOException {
+    EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder().setCleanDataDirectory(true);
+    if (binaryResolver != null) {
+      builder.setPgBinaryResolver(binaryResolver);
+    }
+    if (settings.ephemeral() && Files.isDirectory(SHARED_MEMORY_DIRECTORY)
+        && Files.isWritable(SHARED_MEMORY_DIRECTORY)) {
+      builder.setDataDirectory(SHARED_MEMORY_DIRECTORY.resolve("pgljc-" + UUID.randomUUID()));
+    }
+    for (String option : settings.serverOptions()) {
+      int separator = option.indexOf('=');
+      builder.setServerConfig(option.substring(0, separator).trim(),
+          option.substring(separator + 1).trim());
+    }
+    return new EmbeddedPostgresServer(builder.start());
+  }
+
+  /**
+   * Returns the coordinates of the binaries artifact of the host.
+   *
+   * @param version version of the binaries
+   * @return artifact coordinates
+   */
+  static String binariesArtifact(String version) {
+    return BINARIES_GROUP_ID + ':' + binariesArtifactId(System.getProperty("os.name"),
+        System.getProperty("os.arch"), Files.exists(ALPINE_RELEASE_FILE)) + ':' + version;
+  }
+
+  static String binariesArtifactId(String osName, String osArch, boolean alpine) {
+    String name = osName.toLowerCase(Locale.ROOT);
+    String system;
+    if (name.startsWith("windows")) {
+      system = "windows";
+    } else if (name.startsWith("mac") || name.startsWith("darwin")) {
+      system = "darwin";
+    } else {
+      system = "linux";
+    }
+    String architecture = switch (osArch.toLowerCase(Locale.ROOT)) {
+      case "amd64", "x86_64", "x64" -> "amd64";
+      case "aarch64", "arm64" -> "arm64v8";
+      case "x86", "i386", "i686" -> "i386";
+      default -> osArch.toLowerCase(Locale.ROOT);
+    };
+    return BINARIES_ARTIFACT_ID_PREFIX + system + '-' + architecture
+        + ("linux".equals(system) && alpine ? "-alpine" : "");
+  }
+
+  @Override
+  public PostgresDatabase database() {
+    return new PostgresDatabase(
+        "jdbc:postgresql://localhost:" + postgres.getPort() + '/' + DATABASE_NAME,
+        USERNAME, USERNAME);
+  }
+
+  @Override
+  public void close() {
+    try {
+      postgres.close();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Unable to stop embedded postgres", ex);
+    }
+  }
+
+  /**
+   * Resolves the binaries artifact of the host from the maven repositories and reads the binaries
+   * archive from it. The artifact is resolved once.
+   */
+  static final class ArtifactBinaryResolver implements PgBinaryResolver {
+
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession repositorySession;
+    private final List<RemoteRepository> repositories;
+    private final String artifact;
+    private Path file;
+
+    ArtifactBinaryResolver(RepositorySystem repositorySystem,
+        RepositorySystemSession repositorySession, List<RemoteRepository> repositories,
+        String version) {
+      this.repositorySystem = repositorySystem;
+      this.repositorySession = repositorySession;
+      this.repositories = repositories;
+      this.artifact = binariesArtifact(version);
+    }
+
+    @Override
+    public synchronized InputStream getPgBinary(String system, String machineHardware)
+        throws IOException {
+      if (file == null) {
+        try {
+          file = repositorySystem.resolveArtifact(repositorySession,
+                  new ArtifactRequest(new DefaultArtifact(artifact), repositories, null))
+              .getArtifact().getFile().toPath();
+        } catch (ArtifactResolutionException ex) {
+          throw new IOException("Unable to resolve embedded postgres binaries " + artifact, ex);
+        }
+      }
+      try (ZipFile zip = new ZipFile(file.toFile())) {
+        ZipEntry entry = zip.stream()
+            .filter(candidate -> candidate.getName().endsWith(BINARIES_ENTRY_SUFFIX))
+            .findFirst()
+            .orElseThrow(() -> new IOException("No postgres binaries found in " + file));
+        try (InputStream input = zip.getInputStream(entry)) {
+          return new ByteArrayInputStream(input.readAllBytes());
+        }
+      }
+    }
+
+  }
+
+}
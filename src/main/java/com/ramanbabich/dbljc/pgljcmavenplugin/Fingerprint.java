@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Incrementally computed sha-256 digest of the generation inputs.
+ *
+ * @author Raman Babich
+ */
+final class Fingerprint {
+
+  private static final String ALGORITHM = "SHA-256";
+
+  private final MessageDigest digest;
+
+  Fingerprint() {
+    try {
+      this.digest = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ALGORITHM + " is not supported by the jvm", ex);
+    }
+  }
+
+  /**
+   * Fingerprints the inputs of the generation: the tool versions, the configurations made
+   * independent of the project location, so the fingerprint can be used as a key of the cache
+   * shared by projects, and the changelogs reachable from the changelog file.
+   *
+   * @param generation generation to fingerprint
+   * @param versions versions of the tools the generation is run with
+   * @param basedir base directory of the project
+   * @param changelogRoots directories the changelogs are looked up in
+   * @return fingerprint, {@code null} if the changelog file is not configured
+   * @throws IOException if any of the changelog references can't be resolved or the changelogs
+   *     can't be read
+   */
+  static String ofGeneration(Generation generation, List<String> versions, Path basedir,
+      List<Path> changelogRoots) throws IOException {
+    ChangelogGraph graph = ChangelogGraph.ofGeneration(generation, changelogRoots);
+    if (graph == null) {
+      return null;
+    }
+    graph.checkComplete();
+    Fingerprint fingerprint = new Fingerprint();
+    for (String version : versions) {
+      fingerprint.add(version);
+    }
+    String location = basedir.toAbsolutePath().toString();
+    fingerprint
+        .add(generation.liquibaseConfiguration().toString().replace(location, "${basedir}"))
+        .add(generation.jooqConfiguration().toString().replace(location, "${basedir}"));
+    for (ChangelogGraph.Node node : graph.getNodes()) {
+      fingerprint.add(node.name()).add(node.path());
+    }
+    return fingerprint.toHex();
+  }
+
+  Fingerprint add(String value) {
+    byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+    digest.update(bytes);
+    return this;
+  }
+
+  Fingerprint add(Path file) throws IOException {
+    add(String.valueOf(Files.size(file)));
+    byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(file)) {
+      for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return this;
+  }
+
+  String toHex() {
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.twdata.maven.mojoexecutor.MojoExecutor;
+
+/**
+ * Generates the sources without forking the lifecycle. Liquibase looks the changelogs up
+ * directly in the resource directories of the project, and only if the changelogs are located in
+ * the filtered resource directories, the resources are processed before the generation.
+ *
+ * @author Raman Babich
+ */
+@Mojo(
+    name = "generate-no-fork",
+    defaultPhase = LifecyclePhase.GENERATE_SOURCES,
+    requiresDependencyResolution = ResolutionScope.COMPILE)
+public class GenerateNoForkMojo extends AbstractGenerateMojo {
+
+  private static final String RESOURCES_PLUGIN_GROUP_ID = "org.apache.maven.plugins";
+  private static final String RESOURCES_PLUGIN_ARTIFACT_ID = "maven-resources-plugin";
+  private static final String RESOURCES_PLUGIN_DEFAULT_VERSION = "3.3.1";
+  private static final String RESOURCES_PLUGIN_GOAL = "resources";
+  private static final String SEARCH_PATH_ELEMENT_NAME = "searchPath";
+  private static final String DEFAULT_ROOT_ELEMENT_NAME = "configuration";
+
+  @Override
+  List<Path> changelogRoots() {
+    return sourceChangelogRoots(project);
+  }
+
+  @Override
+  void prepareChangelogs(List<Generation> generations) throws MojoExecutionException {
+    List<Generation> searchPathGenerations = new ArrayList<>();
+    Set<Resource> changelogResources = new HashSet<>();
+    for (Generation generation : generations) {
+      Set<Resource> resources = changelogResources(generation);
+      // changelogs outside the resource directories are looked up on the classpath as usual
+      if (resources != null) {
+        searchPathGenerations.add(generation);
+        changelogResources.addAll(resources);
+      }
+    }
+    if (changelogResources.stream()
+        .anyMatch(resource -> resource.isFiltering() || resource.getTargetPath() != null)) {
+      getLog().info("Changelogs are located in the filtered resources, resources are processed");
+      processResources();
+      return;
+    }
+    String searchPath = project.getResources().stream()
+        .map(Resource::getDirectory)
+        .collect(Collectors.joining(","));
+    for (Generation generation : searchPathGenerations) {
+      Xpp3Dom liquibaseConfiguration = generation.liquibaseConfiguration();
+      if (liquibaseConfiguration.getChild(SEARCH_PATH_ELEMENT_NAME) == null) {
+        Xpp3Dom element = new Xpp3Dom(SEARCH_PATH_ELEMENT_NAME);
+        element.setValue(searchPath);
+        liquibaseConfiguration.addChild(element);
+      }
+    }
+  }
+
+  /**
+   * Finds the resources the changelogs of the generation are located in.
+   *
+   * @return resources or {@code null} if any of the changelogs is located outside of the
+   *     resource directories or can't be resolved
+   */
+  private Set<Resource> changelogResources(Generation generation) {
+    Xpp3Dom changeLogFile = generation.liquibaseConfiguration().getChild("changeLogFile");
+    if (changeLogFile == null || changeLogFile.getValue() == null) {
+      return null;
+    }
+    List<Path> roots = new ArrayList<>();
+    for (Resource resource : project.getResources()) {
+      roots.add(Path.of(resource.getDirectory()).toAbsolutePath().normalize());
+    }
+    ChangelogGraph graph;
+    try {
+      graph = ChangelogGraph.resolve(changeLogFile.getValue().trim(), roots);
+      graph.checkComplete();
+    } catch (IOException ex) {
+      return null;
+    }
+    Set<Resource> resources = new HashSet<>();
+    for (ChangelogGraph.Node node : graph.getNodes()) {
+      Resource resource = null;
+      for (int i = 0; i < roots.size() && resource == null; ++i) {
+        if (node.path().startsWith(roots.get(i))) {
+          resource = project.getResources().get(i);
+        }
+      }
+      if (resource == null) {
+        return null;
+      }
+      resources.add(resource);
+    }
+    return resources;
+  }
+
+  private void processResources() throws MojoExecutionException {
+    Plugin plugin = project.getPlugin(
+        RESOURCES_PLUGIN_GROUP_ID + ":" + RESOURCES_PLUGIN_ARTIFACT_ID);
+    Plugin resourcesPlugin = new Plugin();
+    resourcesPlugin.setGroupId(RESOURCES_PLUGIN_GROUP_ID);
+    resourcesPlugin.setArtifactId(RESOURCES_PLUGIN_ARTIFACT_ID);
+    resourcesPlugin.setVersion(plugin == null || plugin.getVersion() == null
+        ? RESOURCES_PLUGIN_DEFAULT_VERSION
+        : plugin.getVersion());
+    Xpp3Dom configuration = plugin == null || plugin.getConfiguration() == null
+        ? new Xpp3Dom(DEFAULT_ROOT_ELEMENT_NAME)
+        : new Xpp3Dom((Xpp3Dom) plugin.getConfiguration());
+    MojoExecutor.executeMojo(
+        resourcesPlugin,
+        MojoExecutor.goal(RESOURCES_PLUGIN_GOAL),
+        configuration,
+        MojoExecutor.executionEnvironment(project, session, buildPluginManager));
+  }
+
+}
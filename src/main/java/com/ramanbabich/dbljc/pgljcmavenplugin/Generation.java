@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Liquibase and jooq configurations of the single generation, i.e. the database is migrated with
+ * the liquibase configuration and then the sources are generated with the jooq configuration.
+ *
+ * @param id id of the generation or {@code null} if it is the only generation configured with the
+ *     top level {@code liquibaseConfiguration} and {@code jooqConfiguration}
+ * @param liquibaseConfiguration configuration of the liquibase maven plugin update goal
+ * @param jooqConfiguration configuration of the jooq codegen maven plugin generate goal
+ * @author Raman Babich
+ */
+record Generation(String id, Xpp3Dom liquibaseConfiguration, Xpp3Dom jooqConfiguration) {
+
+  String describe() {
+    return id == null ? "generation" : "generation '" + id + "'";
+  }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed cache of the generated sources, entries are keyed by the fingerprint of the
+ * generation inputs and are shared by all the projects using the same cache directory.
+ *
+ * <p>Every entry is a directory with the generated files and a marker file which modification
+ * time is the last access time of the entry.
+ *
+ * @author Raman Babich
+ */
+final class GenerationCache {
+
+  private static final String FILES_DIRECTORY_NAME = "files";
+  private static final String LAST_ACCESS_FILE_NAME = "last-access";
+  private static final String TEMPORARY_ENTRY_MARKER = ".tmp-";
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final Duration maxAge;
+
+  GenerationCache(Path directory, long maxSizeBytes, Duration maxAge) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * Replaces the content of the target directory with the cached files.
+   *
+   * @param key fingerprint of the generation inputs
+   * @param target directory to restore the files to
+   * @return {@code true} if the entry is found and restored, {@code false} otherwise
+   * @throws IOException if the target directory can't be modified
+   */
+  boolean restore(String key, Path target) throws IOException {
+    Path entry = directory.resolve(key);
+    Path files = entry.resolve(FILES_DIRECTORY_NAME);
+    if (!Files.isDirectory(files)) {
+      return false;
+    }
+    touch(entry);
+    deleteRecursively(target);
+    try {
+      copyRecursively(files, target);
+    } catch (IOException ex) {
+      // the entry could be evicted concurrently, so it is treated as absent
+      deleteRecursively(target);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Stores the content of the source directory unless the entry with the same key exists.
+   *
+   * @param key fingerprint of the generation inputs
+   * @param source directory with the generated files
+   * @throws IOException if the cache directory can't be modified
+   */
+  void store(String key, Path source) throws IOException {
+    Path entry = directory.resolve(key);
+    if (Files.isDirectory(entry.resolve(FILES_DIRECTORY_NAME))) {
+      touch(entry);
+      return;
+    }
+    // the entry without files is the leftover of the concurrent eviction
+    deleteRecursively(entry);
+    Files.createDirectories(directory);
+    Path temporaryEntry = directory.resolve(key + TEMPORARY_ENTRY_MARKER + UUID.randomUUID());
+    try {
+      copyRecursively(source, temporaryEntry.resolve(FILES_DIRECTORY_NAME));
+      touch(temporaryEntry);
+      Files.move(temporaryEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException | DirectoryNotEmptyException
+        | AtomicMoveNotSupportedException ex) {
+      // the same entry is stored concurrently, the content is the same, so it is fine to drop
+    } finally {
+      deleteRecursively(temporaryEntry);
+    }
+  }
+
+  /**
+   * Removes the entries not accessed longer than max age and then the least recently accessed
+   * entries until the total size of the cache fits max size.
+   *
+   * @throws IOException if the cache directory can't be read or modified
+   */
+  void evict() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    Instant expiration = Instant.now().minus(maxAge);
+    List<Entry> entries = new ArrayList<>();
+    try (Stream<Path> paths = Files.list(directory)) {
+      for (Path path : paths.toList()) {
+        if (!Files.isDirectory(path)
+            || path.getFileName().toString().contains(TEMPORARY_ENTRY_MARKER)) {
+          continue;
+        }
+        Instant lastAccess = lastAccess(path);
+        if (lastAccess.isBefore(expiration)) {
+          deleteRecursively(path);
+        } else {
+          entries.add(new Entry(path, lastAccess, size(path)));
+        }
+      }
+    }
+    long totalSize = entries.stream().mapToLong(Entry::size).sum();
+    entries.sort(Comparator.comparing(Entry::lastAccess));
+    for (Entry entry : entries) {
+      if (totalSize <= maxSizeBytes) {
+        break;
+      }
+      deleteRecursively(entry.path());
+      totalSize -= entry.size();
+    }
+  }
+
+  /**
+   * Updates the last access time of the entry, the entry evicted concurrently is not recreated.
+   */
+  private static void touch(Path entry) throws IOException {
+    Path lastAccess = entry.resolve(LAST_ACCESS_FILE_NAME);
+    try {
+      try {
+        Files.createFile(lastAccess);
+      } catch (FileAlreadyExistsException ex) {
+        Files.setLastModifiedTime(lastAccess, FileTime.from(Instant.now()));
+      }
+    } catch (NoSuchFileException ex) {
+      // the entry is evicted concurrently
+    }
+  }
+
+  private static Instant lastAccess(Path entry) throws IOException {
+    Path lastAccess = entry.resolve(LAST_ACCESS_FILE_NAME);
+    if (!Files.exists(lastAccess)) {
+      return Files.getLastModifiedTime(entry).toInstant();
+    }
+    return Files.getLastModifiedTime(lastAccess).toInstant();
+  }
+
+  private static long size(Path path) throws IOException {
+    try (Stream<Path> files = Files.walk(path)) {
+      return files.filter(Files::isRegularFile).mapToLong(file -> {
+        try {
+          return Files.size(file);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }).sum();
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  static void copyRecursively(Path source, Path target) throws IOException {
+    try (Stream<Path> paths = Files.walk(source)) {
+      for (Path path : paths.toList()) {
+        Path copy = target.resolve(source.relativize(path).toString());
+        if (Files.isDirectory(path)) {
+          Files.createDirectories(copy);
+        } else {
+          Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    }
+  }
+
+  static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(path)) {
+      for (Path child : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(child);
+      }
+    }
+  }
+
+  private record Entry(Path path, Instant lastAccess, long size) {
+  }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durations of the generation phases and the outcomes of the generations of the plugin
+ * execution. Durations of the phases run by concurrent generations are summed up.
+ *
+ * @author Raman Babich
+ */
+final class GenerationReport {
+
+  private final long startedNanos = System.nanoTime();
+  private final Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+  private final Map<Generation, Long> changesets = new IdentityHashMap<>();
+  private final Map<Generation, Long> writtenBytes = new IdentityHashMap<>();
+  private final List<Outcome> outcomes = new ArrayList<>();
+
+  synchronized void record(Phase phase, long elapsedNanos) {
+    phaseNanos.merge(phase, elapsedNanos, Long::sum);
+  }
+
+  synchronized long elapsedNanos(Phase phase) {
+    return phaseNanos.getOrDefault(phase, 0L);
+  }
+
+  synchronized void recordChangesets(Generation generation, long count) {
+    changesets.put(generation, count);
+  }
+
+  synchronized void recordWrittenBytes(Generation generation, long bytes) {
+    writtenBytes.put(generation, bytes);
+  }
+
+  /**
+   * Records the outcome of the generation, the generated sources are measured right away. The
+   * sources restored from the cache are written as a whole, the generated sources are written
+   * only if they are changed, see {@link #recordWrittenBytes(Generation, long)}.
+   *
+   * @param generation generation the outcome belongs to
+   * @param status outcome of the generation
+   * @param packageDirectory directory with the generated sources of the generation
+   * @throws IOException if the generated sources can't be measured
+   */
+  void recordOutcome(Generation generation, Status status, Path packageDirectory)
+      throws IOException {
+    long files = 0;
+    long bytes = 0;
+    if (Files.isDirectory(packageDirectory)) {
+      try (Stream<Path> paths = Files.walk(packageDirectory)) {
+        for (Path path : paths.filter(Files::isRegularFile).toList()) {
+          ++files;
+          bytes += Files.size(path);
+        }
+      }
+    }
+    synchronized (this) {
+      outcomes.add(new Outcome(generation.id(), status, changesets.get(generation), files, bytes,
+          status == Status.CACHED ? bytes : writtenBytes.getOrDefault(generation, 0L)));
+    }
+  }
+
+  /**
+   * Formats the report as a table to be printed to the build log.
+   *
+   * @return lines of the table
+   */
+  synchronized List<String> summary() {
+    List<String> lines = new ArrayList<>();
+    lines.add(String.format("%-20s %10s", "Phase", "Time, ms"));
+    phaseNanos.forEach((phase, nanos) ->
+        lines.add(String.format("%-20s %10d", phase.title, TimeUnit.NANOSECONDS.toMillis(nanos))));
+    lines.add(String.format("%-20s %10d", "total", totalMillis()));
+    for (Outcome outcome : outcomes) {
+      lines.add(String.format("%s %s: %s changesets, %d files, %d bytes, %d bytes written",
+          outcome.id() == null ? "generation" : "generation '" + outcome.id() + "'",
+          outcome.status().title,
+          outcome.changesets() == null ? "unknown" : outcome.changesets().toString(),
+          outcome.files(), outcome.bytes(), outcome.writtenBytes()));
+    }
+    return lines;
+  }
+
+  /**
+   * Writes the report as json.
+   *
+   * @param file file to write the report to
+   * @throws IOException if the file can't be written
+   */
+  synchronized void write(Path file) throws IOException {
+    StringBuilder json = new StringBuilder("{\n");
+    json.append("  \"totalMillis\": ").append(totalMillis()).append(",\n");
+    json.append("  \"phases\": {");
+    String separator = "\n";
+    for (Map.Entry<Phase, Long> entry : phaseNanos.entrySet()) {
+      json.append(separator).append("    ").append(quote(entry.getKey().key)).append(": ")
+          .append(TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+      separator = ",\n";
+    }
+    json.append(phaseNanos.isEmpty() ? "" : "\n  ").append("},\n");
+    json.append("  \"generations\": [");
+    separator = "\n";
+    for (Outcome outcome : outcomes) {
+      json.append(separator)
+          .append("    {\"id\": ").append(outcome.id() == null ? "null" : quote(outcome.id()))
+          .append(", \"status\": ").append(quote(outcome.status().key))
+          .append(", \"changesets\": ").append(outcome.changesets())
+          .append(", \"files\": ").append(outcome.files())
+          .append(", \"bytes\": ").append(outcome.bytes())
+          .append(", \"writtenBytes\": ").append(outcome.writtenBytes())
+          .append('}');
+      separator = ",\n";
+    }
+    json.append(outcomes.isEmpty() ? "" : "\n  ").append("]\n}\n");
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, json, StandardCharsets.UTF_8);
+  }
+
+  private long totalMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < ' ') {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /**
+   * Phase of the generation.
+   */
+  enum Phase {
+
+    IMAGE_PULL("imagePull", "image pull"),
+    CONTAINER_START("containerStart", "container start"),
+    JDBC_READINESS("jdbcReadiness", "jdbc readiness"),
+    EARLY_START_WAIT("earlyStartWait", "early start wait"),
+    PLUGIN_RESOLUTION("pluginResolution", "plugin resolution"),
+    LIQUIBASE_UPDATE("liquibaseUpdate", "liquibase update"),
+    FAST_APPLY("fastApply", "fast apply"),
+    CATALOG_SNAPSHOT("catalogSnapshot", "catalog snapshot"),
+    JOOQ_GENERATE("jooqGenerate", "jooq generate"),
+    SOURCES_SYNC("sourcesSync", "sources sync"),
+    CONTAINER_STOP("containerStop", "container stop");
+
+    private final String key;
+    private final String title;
+
+    Phase(String key, String title) {
+      this.key = key;
+      this.title = title;
+    }
+
+  }
+
+  /**
+   * Outcome of the generation.
+   */
+  enum Status {
+
+    GENERATED("generated", "is generated"),
+    UP_TO_DATE("up-to-date", "is up to date"),
+    CACHED("cached", "is restored from cache"),
+    CATALOG_UNCHANGED("catalog-unchanged", "has unchanged catalog");
+
+    private final String key;
+    private final String title;
+
+    Status(String key, String title) {
+      this.key = key;
+      this.title = title;
+    }
+
+  }
+
+  private record Outcome(String id, Status status, Long changesets, long files, long bytes,
+      long writtenBytes) {
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import org.testcontainers.containers.ContainerLaunchException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.containers.wait.strategy.WaitStrategy;
+import org.testcontainers.containers.wait.strategy.WaitStrategyTarget;
+
+/**
+ * Waits for the same log messages as the default wait strategy of the postgres container and
+ * then for the first successful jdbc connection, the time spent is recorded to the report.
+ *
+ * @author Raman Babich
+ */
+final class JdbcReadinessWaitStrategy implements WaitStrategy {
+
+  private static final String READY_LOG_MESSAGE_REGEX =
+      ".*database system is ready to accept connections.*\\s";
+  private static final long POLL_INTERVAL_MILLIS = 100;
+
+  private final PostgreSQLContainer<?> postgres;
+  private final GenerationReport report;
+  private Duration startupTimeout = Duration.ofSeconds(60);
+
+  JdbcReadinessWaitStrategy(PostgreSQLContainer<?> postgres, GenerationReport report) {
+    this.postgres = postgres;
+    this.report = report;
+  }
+
+  @Override
+  public void waitUntilReady(WaitStrategyTarget target) {
+    long started = System.nanoTime();
+    // postgres is restarted once by the docker entrypoint, so the message is awaited twice
+    Wait.forLogMessage(READY_LOG_MESSAGE_REGEX, 2)
+        .withStartupTimeout(startupTimeout)
+        .waitUntilReady(target);
+    long deadline = started + startupTimeout.toNanos();
+    PostgresDatabase database = PostgresDatabase.of(postgres);
+    while (true) {
+      try (Connection connection = database.connect()) {
+        break;
+      } catch (SQLException ex) {
+        if (System.nanoTime() - deadline > 0) {
+          throw new ContainerLaunchException("Postgres doesn't accept jdbc connections", ex);
+        }
+      }
+      try {
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new ContainerLaunchException("Waiting for postgres is interrupted", ex);
+      }
+    }
+    report.record(GenerationReport.Phase.JDBC_READINESS, System.nanoTime() - started);
+  }
+
+  @Override
+  public WaitStrategy withStartupTimeout(Duration startupTimeout) {
+    this.startupTimeout = startupTimeout;
+    return this;
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Settings the postgres container is created with, containers created with the equal settings
+ * are interchangeable.
+ *
+ * @param dockerImageName postgres docker image name
+ * @param ephemeral whether the durability features are disabled and the data is kept in memory
+ * @param serverOptions server settings in the {@code name=value} form, the ephemeral ones go
+ *     first
+ * @param reusable whether the container is kept running after the build
+ * @author Raman Babich
+ */
+record PostgresContainerSettings(String dockerImageName, boolean ephemeral,
+    List<String> serverOptions, boolean reusable) {
+
+  static final String DEFAULT_DOCKER_IMAGE_NAME = "postgres:15.3-alpine";
+
+  private static final String REUSABLE_CONTAINER_LABEL = "com.ramanbabich.dbljc.pgljc.reusable";
+  private static final String POSTGRES_DATA_DIRECTORY = "/var/lib/postgresql/data";
+  private static final List<String> EPHEMERAL_POSTGRES_OPTIONS = List.of(
+      "fsync=off",
+      "synchronous_commit=off",
+      "full_page_writes=off",
+      "wal_level=minimal",
+      "max_wal_senders=0",
+      "max_wal_size=1GB",
+      "shared_buffers=256MB",
+      "maintenance_work_mem=256MB");
+
+  /**
+   * Builds the settings from the plugin parameters.
+   *
+   * @param dockerImageName postgres docker image name
+   * @param ephemeral whether the ephemeral postgres settings are applied
+   * @param serverOptions extra server settings in the {@code name=value} form, may be
+   *     {@code null}
+   * @param reusable whether the container is kept running after the build
+   * @return settings of the container
+   * @throws MojoExecutionException if any of the server options is malformed
+   */
+  static PostgresContainerSettings of(String dockerImageName, boolean ephemeral,
+      List<String> serverOptions, boolean reusable) throws MojoExecutionException {
+    List<String> options = new ArrayList<>();
+    if (ephemeral) {
+      options.addAll(EPHEMERAL_POSTGRES_OPTIONS);
+    }
+    if (serverOptions != null) {
+      for (String option : serverOptions) {
+        if (option == null || option.indexOf('=') <= 0) {
+          throw new MojoExecutionException(String.format(
+              "Postgres server option '%s' doesn't match the name=value form", option));
+        }
+        options.add(option.trim());
+      }
+    }
+    return new PostgresContainerSettings(dockerImageName, ephemeral, List.copyOf(options),
+        reusable);
+  }
+
+  /**
+   * Returns the container command passing the server options with the {@code -c} flag.
+   *
+   * @return server command, the empty command means the default command of the image
+   */
+  List<String> command() {
+    List<String> command = new ArrayList<>();
+    if (!serverOptions.isEmpty()) {
+      command.add("postgres");
+      for (String option : serverOptions) {
+        command.add("-c");
+        command.add(option);
+      }
+    }
+    return command;
+  }
+
+  /**
+   * Returns the key the containers created with these settings are shared by.
+   *
+   * @return key of the container
+   */
+  String key() {
+    return dockerImageName + ' ' + String.join(" ", command()) + (ephemeral ? " tmpfs" : "")
+        + (reusable ? " reusable" : "");
+  }
+
+  /**
+   * Creates the not started container, the time the container takes to get ready is recorded to
+   * the report.
+   *
+   * @param report report of the execution
+   * @return new container
+   */
+  PostgreSQLContainer<?> newContainer(GenerationReport report) {
+    PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(dockerImageName);
+    postgres.waitingFor(new JdbcReadinessWaitStrategy(postgres, report));
+    List<String> command = command();
+    if (!command.isEmpty()) {
+      postgres.setCommand(command.toArray(new String[0]));
+    }
+    if (ephemeral) {
+      postgres.withTmpFs(Map.of(POSTGRES_DATA_DIRECTORY, "rw"));
+    }
+    if (reusable) {
+      postgres.withReuse(true);
+      postgres.withLabel(REUSABLE_CONTAINER_LABEL, Boolean.TRUE.toString());
+    }
+    return postgres;
+  }
+
+}
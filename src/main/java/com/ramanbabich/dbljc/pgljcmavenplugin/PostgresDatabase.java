@@ -0,0 +1,253 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.postgresql.Driver;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Connection values of the postgres database.
+ *
+ * @param jdbcUrl jdbc url of the database
+ * @param username name of the user
+ * @param password password of the user
+ * @author Raman Babich
+ */
+record PostgresDatabase(String jdbcUrl, String username, String password) {
+
+  private static final Pattern JDBC_URL_PATTERN =
+      Pattern.compile("^(jdbc:postgresql://[^/]+/)([^?]*)(.*)$");
+  private static final String USER_SCHEMA_CONDITION =
+      " NOT IN ('information_schema', 'pg_catalog') AND left(%1$s, 3) <> 'pg_'";
+  /**
+   * Queries describing the objects of the user schemas jooq generates the sources for: tables,
+   * views and sequences, columns, constraints, indexes, user defined types and routines. The
+   * queries don't select oids, so the equal schemas have the equal descriptions.
+   */
+  private static final List<String> CATALOG_QUERIES = List.of(
+      "SELECT n.nspname, c.relname, c.relkind, obj_description(c.oid, 'pg_class')"
+          + " FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace"
+          + " WHERE c.relkind IN ('r', 'p', 'v', 'm', 'f', 'S')"
+          + " AND n.nspname" + USER_SCHEMA_CONDITION.formatted("n.nspname")
+          + " ORDER BY 1, 2",
+      "SELECT n.nspname, c.relname, a.attnum, a.attname, format_type(a.atttypid, a.atttypmod),"
+          + " a.attnotnull, a.attidentity, a.attgenerated, pg_get_expr(d.adbin, d.adrelid),"
+          + " col_description(c.oid, a.attnum)"
+          + " FROM pg_attribute a JOIN pg_class c ON c.oid = a.attrelid"
+          + " JOIN pg_namespace n ON n.oid = c.relnamespace"
+          + " LEFT JOIN pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum"
+          + " WHERE a.attnum > 0 AND NOT a.attisdropped"
+          + " AND c.relkind IN ('r', 'p', 'v', 'm', 'f', 'c')"
+          + " AND n.nspname" + USER_SCHEMA_CONDITION.formatted("n.nspname")
+          + " ORDER BY 1, 2, 3",
+      "SELECT n.nspname, c.conrelid::regclass::text, c.conname, c.contype,"
+          + " pg_get_constraintdef(c.oid)"
+          + " FROM pg_constraint c JOIN pg_namespace n ON n.oid = c.connamespace"
+          + " WHERE n.nspname" + USER_SCHEMA_CONDITION.formatted("n.nspname")
+          + " ORDER BY 1, 2, 3",
+      "SELECT schemaname, tablename, indexname, indexdef FROM pg_indexes"
+          + " WHERE schemaname" + USER_SCHEMA_CONDITION.formatted("schemaname")
+          + " ORDER BY 1, 2, 3",
+      "SELECT schemaname, sequencename, data_type::text, start_value, min_value, max_value,"
+          + " increment_by, cycle, cache_size FROM pg_sequences"
+          + " WHERE schemaname" + USER_SCHEMA_CONDITION.formatted("schemaname")
+          + " ORDER BY 1, 2",
+      "SELECT n.nspname, t.typname, t.typtype, format_type(t.typbasetype, t.typtypmod),"
+          + " t.typnotnull, (SELECT string_agg(e.enumlabel, ',' ORDER BY e.enumsortorder)"
+          + " FROM pg_enum e WHERE e.enumtypid = t.oid)"
+          + " FROM pg_type t JOIN pg_namespace n ON n.oid = t.typnamespace"
+          + " WHERE t.typtype IN ('c', 'd', 'e', 'r')"
+          + " AND n.nspname" + USER_SCHEMA_CONDITION.formatted("n.nspname")
+          + " ORDER BY 1, 2",
+      "SELECT n.nspname, p.proname, p.prokind, pg_get_function_identity_arguments(p.oid),"
+          + " pg_get_function_result(p.oid)"
+          + " FROM pg_proc p JOIN pg_namespace n ON n.oid = p.pronamespace"
+          + " WHERE n.nspname" + USER_SCHEMA_CONDITION.formatted("n.nspname")
+          + " ORDER BY 1, 2, 4");
+
+  static PostgresDatabase of(PostgreSQLContainer<?> postgres) {
+    return new PostgresDatabase(postgres.getJdbcUrl(), postgres.getUsername(),
+        postgres.getPassword());
+  }
+
+  String databaseName() {
+    return jdbcUrlMatcher().group(2);
+  }
+
+  PostgresDatabase withDatabaseName(String databaseName) {
+    Matcher matcher = jdbcUrlMatcher();
+    return new PostgresDatabase(matcher.group(1) + databaseName + matcher.group(3), username,
+        password);
+  }
+
+  Connection connect() throws SQLException {
+    Properties properties = new Properties();
+    if (username != null) {
+      properties.setProperty("user", username);
+    }
+    if (password != null) {
+      properties.setProperty("password", password);
+    }
+    Connection connection = new Driver().connect(jdbcUrl, properties);
+    if (connection == null) {
+      throw new SQLException("Unsupported jdbc url " + jdbcUrl);
+    }
+    return connection;
+  }
+
+  /**
+   * Counts the rows of the table.
+   *
+   * @param schemaName schema of the table, the search path is used if {@code null}
+   * @param tableName name of the table
+   * @return number of the rows
+   * @throws SQLException if the rows can't be counted, e.g. the table doesn't exist
+   */
+  long countRows(String schemaName, String tableName) throws SQLException {
+    String table = schemaName == null
+        ? quote(tableName)
+        : quote(schemaName) + '.' + quote(tableName);
+    try (Connection connection = connect();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + table)) {
+      if (!resultSet.next()) {
+        throw new SQLException("No rows are counted in " + table);
+      }
+      return resultSet.getLong(1);
+    }
+  }
+
+  /**
+   * Takes the snapshot of the catalog objects jooq generates the sources for and digests it.
+   *
+   * @return sha-256 digest of the catalog snapshot
+   * @throws SQLException if the catalog can't be read
+   */
+  String catalogDigest() throws SQLException {
+    Fingerprint fingerprint = new Fingerprint();
+    try (Connection connection = connect();
+        Statement statement = connection.createStatement()) {
+      for (String query : CATALOG_QUERIES) {
+        fingerprint.add(query);
+        try (ResultSet resultSet = statement.executeQuery(query)) {
+          int columns = resultSet.getMetaData().getColumnCount();
+          while (resultSet.next()) {
+            for (int i = 1; i <= columns; ++i) {
+              fingerprint.add(resultSet.getString(i));
+            }
+          }
+        }
+      }
+    }
+    return fingerprint.toHex();
+  }
+
+  /**
+   * Creates the database on the same server.
+   *
+   * @param databaseName name of the new database
+   * @return connection values of the new database
+   * @throws SQLException if the database can't be created
+   */
+  PostgresDatabase createDatabase(String databaseName) throws SQLException {
+    execute("CREATE DATABASE " + quote(databaseName));
+    return withDatabaseName(databaseName);
+  }
+
+  /**
+   * Creates the database on the same server as a copy of the template database.
+   *
+   * @param databaseName name of the new database
+   * @param templateDatabaseName name of the database to copy
+   * @return connection values of the new database
+   * @throws SQLException if the database can't be created
+   */
+  PostgresDatabase createDatabase(String databaseName, String templateDatabaseName)
+      throws SQLException {
+    execute("CREATE DATABASE " + quote(databaseName) + " TEMPLATE " + quote(templateDatabaseName));
+    return withDatabaseName(databaseName);
+  }
+
+  /**
+   * Lists the databases of the same server, the most recently created databases go first.
+   *
+   * @param prefix prefix of the database names
+   * @return names of the databases
+   * @throws SQLException if the databases can't be listed
+   */
+  List<String> databaseNames(String prefix) throws SQLException {
+    try (Connection connection = connect();
+        PreparedStatement statement = connection.prepareStatement(
+            "SELECT datname FROM pg_database WHERE left(datname, ?) = ? ORDER BY oid DESC")) {
+      statement.setInt(1, prefix.length());
+      statement.setString(2, prefix);
+      List<String> names = new ArrayList<>();
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          names.add(resultSet.getString(1));
+        }
+      }
+      return names;
+    }
+  }
+
+  /**
+   * Drops the database on the same server, active connections to the database are terminated.
+   *
+   * @param databaseName name of the database to drop
+   * @throws SQLException if the database can't be dropped
+   */
+  void dropDatabase(String databaseName) throws SQLException {
+    try (Connection connection = connect();
+        PreparedStatement statement = connection.prepareStatement(
+            "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE datname = ?")) {
+      statement.setString(1, databaseName);
+      statement.execute();
+    }
+    execute("DROP DATABASE IF EXISTS " + quote(databaseName));
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (Connection connection = connect();
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private Matcher jdbcUrlMatcher() {
+    Matcher matcher = JDBC_URL_PATTERN.matcher(jdbcUrl);
+    if (!matcher.matches()) {
+      throw new IllegalStateException("Unexpected postgres jdbc url " + jdbcUrl);
+    }
+    return matcher;
+  }
+
+  static String quote(String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+}
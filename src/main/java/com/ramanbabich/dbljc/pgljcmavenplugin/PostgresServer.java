@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+/**
+ * Started postgres server the generations run against.
+ *
+ * @author Raman Babich
+ */
+interface PostgresServer extends AutoCloseable {
+
+  /**
+   * Returns the connection values of the default database of the server.
+   *
+   * @return default database of the server
+   */
+  PostgresDatabase database();
+
+  /**
+   * Stops the server.
+   */
+  @Override
+  void close();
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * Warms up everything the generate goals need, so they start in the fully warm state: pulls the
+ * postgres image or extracts the embedded binaries, verifies postgres is ready and resolves
+ * liquibase, jooq and the jdbc driver, all in parallel. Is meant to be run on the cold agents in
+ * the separate step before the build, e.g. while building the docker image of the agent.
+ *
+ * @author Raman Babich
+ */
+@Mojo(
+    name = "prepare",
+    defaultPhase = LifecyclePhase.INITIALIZE,
+    threadSafe = true)
+public class PrepareMojo extends AbstractGenerateMojo {
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    prepare();
+  }
+
+  @Override
+  void prepareChangelogs(List<Generation> generations) {
+    // changelogs aren't used by the preparation
+  }
+
+}
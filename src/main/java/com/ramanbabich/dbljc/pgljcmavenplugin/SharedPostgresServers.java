@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Postgres servers that are started once per jvm and are never stopped by the plugin, so they
+ * are shared by all the plugin executions of the build. Docker containers are expected to be
+ * created with testcontainers reuse enabled, so they also survive the build and are picked up by
+ * the next builds.
+ *
+ * @author Raman Babich
+ */
+final class SharedPostgresServers {
+
+  private static final Map<String, PostgresServer> SERVERS = new HashMap<>();
+
+  private SharedPostgresServers() {
+  }
+
+  /**
+   * Returns the started server for the key, the server is created and started by the factory if
+   * it is absent.
+   *
+   * @param key key of the server, e.g. docker image name
+   * @param factory factory of the started server
+   * @return started server
+   */
+  static synchronized PostgresServer obtain(String key, Supplier<PostgresServer> factory) {
+    PostgresServer server = SERVERS.get(key);
+    if (server == null) {
+      server = factory.get();
+      SERVERS.put(key, server);
+    }
+    return server;
+  }
+
+}
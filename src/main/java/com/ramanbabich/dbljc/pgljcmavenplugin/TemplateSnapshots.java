@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Snapshots of the migrated databases kept as postgres template databases on the server. Every
+ * snapshot is keyed by the prefix of the changelog graph it has applied, see
+ * {@link ChangelogGraph#prefixKeys(String)}. Only the databases migrated with the whole graph are
+ * snapshotted, so the snapshot of a shorter prefix exists only if the graph was extended since.
+ *
+ * @author Raman Babich
+ */
+final class TemplateSnapshots {
+
+  private static final String DATABASE_NAME_PREFIX = "pgljc_tpl_";
+  // postgres identifiers are limited by 63 bytes
+  private static final int KEY_LENGTH = 40;
+
+  private final PostgresDatabase server;
+  private final int maxSnapshots;
+
+  TemplateSnapshots(PostgresDatabase server, int maxSnapshots) {
+    this.server = server;
+    this.maxSnapshots = maxSnapshots;
+  }
+
+  /**
+   * Finds the snapshot of the longest prefix.
+   *
+   * @param prefixKeys keys of the changelog graph prefixes from the shortest to the longest
+   * @return name of the snapshot database or {@code null} if there is no snapshot of any prefix
+   * @throws SQLException if the snapshots can't be listed
+   */
+  String findLongest(List<String> prefixKeys) throws SQLException {
+    Set<String> snapshots = new HashSet<>(server.databaseNames(DATABASE_NAME_PREFIX));
+    for (int i = prefixKeys.size() - 1; i >= 0; --i) {
+      String databaseName = databaseName(prefixKeys.get(i));
+      if (snapshots.contains(databaseName)) {
+        return databaseName;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Snapshots the database unless the snapshot with the same key exists, the oldest snapshots
+   * are dropped if there are more than max snapshots.
+   *
+   * @param prefixKey key of the changelog graph prefix applied to the database
+   * @param databaseName name of the database to snapshot, it must have no active connections
+   * @throws SQLException if the snapshot can't be created
+   */
+  void create(String prefixKey, String databaseName) throws SQLException {
+    String snapshot = databaseName(prefixKey);
+    List<String> snapshots = server.databaseNames(DATABASE_NAME_PREFIX);
+    if (!snapshots.contains(snapshot)) {
+      server.createDatabase(snapshot, databaseName);
+      snapshots = server.databaseNames(DATABASE_NAME_PREFIX);
+    }
+    for (String obsolete : snapshots.subList(Math.min(maxSnapshots, snapshots.size()),
+        snapshots.size())) {
+      server.dropDatabase(obsolete);
+    }
+  }
+
+  static String databaseName(String prefixKey) {
+    return DATABASE_NAME_PREFIX + prefixKey.substring(0, Math.min(KEY_LENGTH, prefixKey.length()));
+  }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Liquibase update script rendered by {@code updateSQL} split into the changesets. The script is
+ * applied in a single transaction, the consecutive changesets are sent to the server in batches,
+ * so the update doesn't pay the round trip and the commit of every changeset.
+ *
+ * @author Raman Babich
+ */
+final class UpdateScript {
+
+  static final int BATCH_SIZE = 100;
+
+  private static final String CHANGESET_COMMENT_PREFIX = "-- Changeset ";
+  private static final String RELEASE_LOCK_COMMENT = "-- Release Database Lock";
+  private static final String COMMENT_PREFIX = "--";
+  /**
+   * Sql state of the statements that can't be run inside a transaction block, e.g.
+   * {@code CREATE INDEX CONCURRENTLY}.
+   */
+  private static final String ACTIVE_SQL_TRANSACTION_STATE = "25001";
+  private static final Pattern DOLLAR_QUOTE_PATTERN =
+      Pattern.compile("\\$(?:[A-Za-z_][A-Za-z0-9_]*)?\\$");
+
+  private final List<Block> blocks;
+
+  private UpdateScript(List<Block> blocks) {
+    this.blocks = blocks;
+  }
+
+  /**
+   * Splits the script into the blocks by the changeset comments liquibase puts before the
+   * statements of every changeset. The statements before the first changeset and after the last
+   * one maintain the changelog and the lock tables.
+   *
+   * @param script update script
+   * @return parsed script
+   */
+  static UpdateScript parse(String script) {
+    List<Block> blocks = new ArrayList<>();
+    String changeset = null;
+    StringBuilder sql = new StringBuilder();
+    for (String line : script.lines().toList()) {
+      if (line.startsWith(CHANGESET_COMMENT_PREFIX) || line.startsWith(RELEASE_LOCK_COMMENT)) {
+        addBlock(blocks, changeset, sql.toString());
+        changeset = line.startsWith(CHANGESET_COMMENT_PREFIX)
+            ? line.substring(CHANGESET_COMMENT_PREFIX.length()).trim()
+            : null;
+        sql.setLength(0);
+      }
+      sql.append(line).append('\n');
+    }
+    addBlock(blocks, changeset, sql.toString());
+    return new UpdateScript(List.copyOf(blocks));
+  }
+
+  List<String> changesets() {
+    return blocks.stream().map(Block::changeset).filter(changeset -> changeset != null).toList();
+  }
+
+  /**
+   * Applies the script in a single transaction. If a batch fails, it is rolled back and its
+   * changesets are applied one by one to find the failed one. The changesets that can't be run
+   * inside a transaction block are applied statement by statement in the auto-commit mode.
+   *
+   * @param connection connection to the database
+   * @param batchSize maximum number of the changesets sent to the server at once
+   * @throws SQLException if any changeset fails, the message names the failed changeset
+   */
+  void apply(Connection connection, int batchSize) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      for (int from = 0; from < blocks.size(); from += batchSize) {
+        List<Block> batch = blocks.subList(from, Math.min(from + batchSize, blocks.size()));
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+          statement.execute(String.join("", batch.stream().map(Block::sql).toList()));
+          connection.releaseSavepoint(savepoint);
+        } catch (SQLException ex) {
+          connection.rollback(savepoint);
+          for (Block block : batch) {
+            apply(connection, statement, block);
+          }
+        }
+      }
+      connection.commit();
+    } catch (SQLException ex) {
+      connection.rollback();
+      throw ex;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private static void apply(Connection connection, Statement statement, Block block)
+      throws SQLException {
+    Savepoint savepoint = connection.setSavepoint();
+    try {
+      statement.execute(block.sql());
+      connection.releaseSavepoint(savepoint);
+      return;
+    } catch (SQLException ex) {
+      connection.rollback(savepoint);
+      if (!ACTIVE_SQL_TRANSACTION_STATE.equals(ex.getSQLState())) {
+        throw failure(block, ex);
+      }
+    }
+    connection.commit();
+    connection.setAutoCommit(true);
+    try {
+      for (String sql : statements(block.sql())) {
+        statement.execute(sql);
+      }
+    } catch (SQLException ex) {
+      throw failure(block, ex);
+    } finally {
+      connection.setAutoCommit(false);
+    }
+  }
+
+  private static SQLException failure(Block block, SQLException cause) {
+    return new SQLException(String.format("%s failed: %s",
+        block.changeset() == null
+            ? "Liquibase changelog maintenance"
+            : "Changeset " + block.changeset(),
+        cause.getMessage()), cause.getSQLState(), cause);
+  }
+
+  /**
+   * Splits the block into the statements by the semicolons outside of the string literals, the
+   * quoted identifiers, the comments and the dollar-quoted bodies, e.g. of the functions and of
+   * the {@code DO} blocks.
+   */
+  private static List<String> statements(String sql) {
+    List<String> statements = new ArrayList<>();
+    int start = 0;
+    int index = 0;
+    while (index < sql.length()) {
+      if (sql.charAt(index) == ';') {
+        addStatement(statements, sql.substring(start, index + 1));
+        start = ++index;
+      } else {
+        index = skipToken(sql, index);
+      }
+    }
+    addStatement(statements, sql.substring(start));
+    return statements;
+  }
+
+  /**
+   * Returns the index right after the string literal, the quoted identifier, the comment or the
+   * dollar-quoted body starting at the index, or the next index if none of them starts there.
+   */
+  private static int skipToken(String sql, int index) {
+    char character = sql.charAt(index);
+    if (sql.startsWith("--", index)) {
+      int end = sql.indexOf('\n', index);
+      return end < 0 ? sql.length() : end + 1;
+    }
+    if (sql.startsWith("/*", index)) {
+      int depth = 0;
+      int i = index;
+      while (i < sql.length()) {
+        if (sql.startsWith("/*", i)) {
+          ++depth;
+          i += 2;
+        } else if (sql.startsWith("*/", i)) {
+          i += 2;
+          if (--depth == 0) {
+            return i;
+          }
+        } else {
+          ++i;
+        }
+      }
+      return sql.length();
+    }
+    if (character == '\'') {
+      boolean escapes = index > 0 && Character.toUpperCase(sql.charAt(index - 1)) == 'E'
+          && (index == 1 || !isIdentifierPart(sql.charAt(index - 2)));
+      int i = index + 1;
+      while (i < sql.length()) {
+        char current = sql.charAt(i);
+        if (escapes && current == '\\') {
+          i += 2;
+        } else if (current == '\'') {
+          if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+            i += 2;
+          } else {
+            return i + 1;
+          }
+        } else {
+          ++i;
+        }
+      }
+      return sql.length();
+    }
+    if (character == '"') {
+      int end = sql.indexOf('"', index + 1);
+      return end < 0 ? sql.length() : end + 1;
+    }
+    if (character == '$' && (index == 0 || !isIdentifierPart(sql.charAt(index - 1)))) {
+      Matcher matcher = DOLLAR_QUOTE_PATTERN.matcher(sql).region(index, sql.length());
+      if (matcher.lookingAt()) {
+        int end = sql.indexOf(matcher.group(), matcher.end());
+        return end < 0 ? sql.length() : end + matcher.group().length();
+      }
+    }
+    return index + 1;
+  }
+
+  private static boolean isIdentifierPart(char character) {
+    return Character.isLetterOrDigit(character) || character == '_' || character == '$';
+  }
+
+  private static void addBlock(List<Block> blocks, String changeset, String sql) {
+    if (changeset != null || hasStatements(sql)) {
+      blocks.add(new Block(changeset, sql));
+    }
+  }
+
+  private static void addStatement(List<String> statements, String sql) {
+    if (hasStatements(sql)) {
+      statements.add(sql);
+    }
+  }
+
+  private static boolean hasStatements(String sql) {
+    return sql.lines().map(String::strip)
+        .anyMatch(line -> !line.isEmpty() && !line.startsWith(COMMENT_PREFIX));
+  }
+
+  /**
+   * Statements of the changeset, or of the changelog maintenance if the changeset is
+   * {@code null}.
+   */
+  private record Block(String changeset, String sql) {
+  }
+
+}
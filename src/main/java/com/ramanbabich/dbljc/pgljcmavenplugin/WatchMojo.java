@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Keeps postgres running and regenerates the sources every time the changelogs are changed until
+ * the build is interrupted. The changelogs are looked up the same way the
+ * {@code generate-no-fork} goal looks them up, so the changes are seen without processing the
+ * resources. Every regeneration snapshots the fully migrated database and starts from the most
+ * recent snapshot whose changelog files are unchanged, so a changelog included at the end gets
+ * only its changesets applied, while an edit of an existing changelog file starts from the
+ * snapshot taken before the file was included, if it is still kept, or from scratch.
+ *
+ * @author Raman Babich
+ */
+@Mojo(
+    name = "watch",
+    requiresDependencyResolution = ResolutionScope.COMPILE)
+public class WatchMojo extends GenerateNoForkMojo {
+
+  /**
+   * Period without the changes of the changelogs the regeneration starts after.
+   */
+  @Parameter(name = "watchQuietPeriodMillis", defaultValue = "300")
+  private long watchQuietPeriodMillis;
+
+  private Set<Path> directories = Set.of();
+  private boolean interrupted;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    initialize();
+    try {
+      withPostgresServer(this::watch);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  boolean templateSnapshotsEnabled() {
+    return true;
+  }
+
+  private void watch(PostgresServer server) throws MojoExecutionException {
+    Thread stopper = new Thread(server::close, "pgljc-watch-stop");
+    Runtime.getRuntime().addShutdownHook(stopper);
+    try (ChangelogWatcher watcher = new ChangelogWatcher()) {
+      while (!Thread.currentThread().isInterrupted()) {
+        long started = System.nanoTime();
+        try {
+          regenerate(server);
+          getLog().info(String.format("Sources are regenerated in %d ms",
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+        } catch (MojoExecutionException ex) {
+          getLog().error("Generation failed, the sources are regenerated on the next change: "
+              + ex.getMessage());
+        }
+        watcher.watch(changelogDirectories());
+        getLog().info("Watching changelogs in " + directories + ", press Ctrl+C to stop");
+        getLog().info("Changed " + watcher.awaitChanges(
+            Duration.ofMillis(watchQuietPeriodMillis)));
+      }
+    } catch (IOException ex) {
+      throw new MojoExecutionException("Unable to watch changelogs", ex);
+    } catch (InterruptedException ex) {
+      // the interruption is restored once the server is stopped, the interrupted thread can't
+      // wait for the server to stop
+      interrupted = true;
+    } finally {
+      try {
+        Runtime.getRuntime().removeShutdownHook(stopper);
+      } catch (IllegalStateException ex) {
+        // the jvm is shutting down, so the hook stops the server
+      }
+    }
+  }
+
+  /**
+   * Resolves the directories the changelogs of all the generations are located in. If the
+   * changelogs can't be resolved, e.g. because an include is being edited, the previously
+   * resolved directories are watched, or the resource directories if there are no such.
+   */
+  private Set<Path> changelogDirectories() throws MojoExecutionException {
+    Set<Path> resolved = new HashSet<>();
+    for (Generation generation : generations()) {
+      Xpp3Dom changeLogFile = generation.liquibaseConfiguration().getChild("changeLogFile");
+      if (changeLogFile == null || changeLogFile.getValue() == null) {
+        throw new MojoExecutionException(
+            "Changelog file of " + generation.describe() + " is not configured");
+      }
+      try {
+        for (ChangelogGraph.Node node : ChangelogGraph.resolve(
+            changeLogFile.getValue().trim(), changelogRoots()).getNodes()) {
+          resolved.add(node.path().toAbsolutePath().normalize().getParent());
+        }
+      } catch (IOException ex) {
+        getLog().warn("Unable to resolve changelogs of " + generation.describe()
+            + ", previously resolved directories are watched: " + ex.getMessage());
+        if (directories.isEmpty()) {
+          directories = project.getResources().stream()
+              .map(resource -> Path.of(resource.getDirectory()).toAbsolutePath().normalize())
+              .collect(Collectors.toUnmodifiableSet());
+        }
+        return directories;
+      }
+    }
+    directories = Set.copyOf(resolved);
+    return directories;
+  }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+/**
+ * @author Raman Babich
+ */
+class BuildCacheLifecycleParticipantTest {
+
+  @TempDir
+  private Path basedir;
+
+  @Test
+  void shouldDeclareChangelogsOutsideResources() throws Exception {
+    write("db/master.yaml", """
+        databaseChangeLog:
+          - include:
+              file: db/tables.sql
+          - includeAll:
+              path: db/views
+        """);
+    write("db/tables.sql", "create table data (key varchar(100));");
+    write("db/views/data.sql", "create view data_view as select * from data;");
+    write("src/main/resources/readme.txt", "resources");
+    MavenProject project = project(plugin());
+
+    new BuildCacheLifecycleParticipant().afterProjectsRead(session(project));
+
+    List<String> inputs = new ArrayList<>();
+    for (int i = 1; ; ++i) {
+      String input = project.getProperties().getProperty(
+          BuildCacheLifecycleParticipant.CACHE_INPUT_PROPERTY_PREFIX + i);
+      if (input == null) {
+        break;
+      }
+      inputs.add(input);
+    }
+    Assertions.assertEquals(
+        List.of(
+            basedir.resolve("src/main/resources").toString(),
+            basedir.resolve("db/master.yaml").toString(),
+            basedir.resolve("db/tables.sql").toString(),
+            basedir.resolve("db/views/data.sql").toString(),
+            basedir.resolve("db/views").toString()),
+        inputs);
+  }
+
+  @Test
+  void shouldDisableCacheWhenChangelogReferenceIsUnresolvable() throws Exception {
+    write("db/master.yaml", """
+        databaseChangeLog:
+          - include:
+              file: db/${schema}/tables.sql
+        """);
+    MavenProject project = project(plugin());
+
+    new BuildCacheLifecycleParticipant().afterProjectsRead(session(project));
+
+    Assertions.assertEquals("false", project.getProperties().getProperty(
+        BuildCacheLifecycleParticipant.CACHE_ENABLED_PROPERTY));
+    Assertions.assertNull(project.getProperties().getProperty(
+        BuildCacheLifecycleParticipant.CACHE_INPUT_PROPERTY_PREFIX + 1));
+  }
+
+  @Test
+  void shouldSkipProjectsWithoutPlugin() {
+    MavenProject project = project(null);
+
+    new BuildCacheLifecycleParticipant().afterProjectsRead(session(project));
+
+    Assertions.assertTrue(project.getProperties().stringPropertyNames().stream()
+        .noneMatch(name -> name.startsWith(
+            BuildCacheLifecycleParticipant.CACHE_INPUT_PROPERTY_PREFIX)));
+  }
+
+  private static Plugin plugin() {
+    Xpp3Dom changeLogFile = new Xpp3Dom("changeLogFile");
+    changeLogFile.setValue("db/master.yaml");
+    Xpp3Dom liquibaseConfiguration = new Xpp3Dom("liquibaseConfiguration");
+    liquibaseConfiguration.addChild(changeLogFile);
+    Xpp3Dom configuration = new Xpp3Dom("configuration");
+    configuration.addChild(liquibaseConfiguration);
+    configuration.addChild(new Xpp3Dom("jooqConfiguration"));
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("com.ramanbabich.dbljc");
+    plugin.setArtifactId("pgljc-maven-plugin");
+    plugin.setVersion("version");
+    plugin.setConfiguration(configuration);
+    return plugin;
+  }
+
+  private MavenProject project(Plugin plugin) {
+    Resource resource = new Resource();
+    resource.setDirectory(basedir.resolve("src/main/resources").toString());
+    Build build = new Build();
+    build.setResources(List.of(resource));
+    if (plugin != null) {
+      build.setPlugins(List.of(plugin));
+    }
+    Model model = new Model();
+    model.setGroupId("group");
+    model.setArtifactId("artifact");
+    model.setVersion("version");
+    model.setBuild(build);
+    MavenProject project = new MavenProject(model);
+    project.setFile(basedir.resolve("pom.xml").toFile());
+    return project;
+  }
+
+  private static MavenSession session(MavenProject project) {
+    MavenSession session = Mockito.mock(MavenSession.class);
+    Mockito.when(session.getProjects()).thenReturn(List.of(project));
+    return session;
+  }
+
+  private void write(String file, String content) throws Exception {
+    Path path = basedir.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, content, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Raman Babich
+ */
+class ChangelogGraphTest {
+
+  @TempDir
+  private Path root;
+
+  @Test
+  void shouldResolveIncludesInOrder() throws Exception {
+    write("db/changelog/master.yaml", """
+        databaseChangeLog:
+          - include:
+              file: db/changelog/001-tables.xml
+          - include:
+              file: 002-data.json
+              relativeToChangelogFile: true
+          - includeAll:
+              path: db/changelog/sql/
+        """);
+    write("db/changelog/001-tables.xml", """
+        <databaseChangeLog>
+          <changeSet id="1" author="author">
+            <sqlFile path="db/changelog/raw/tables.sql"/>
+          </changeSet>
+        </databaseChangeLog>
+        """);
+    write("db/changelog/002-data.json", """
+        {"databaseChangeLog": [{"include": {"file": "db/changelog/001-tables.xml"}}]}
+        """);
+    write("db/changelog/raw/tables.sql", "create table data (key varchar(100));");
+    write("db/changelog/sql/b.sql", "--liquibase formatted sql");
+    write("db/changelog/sql/a.sql", "--liquibase formatted sql");
+
+    ChangelogGraph graph = ChangelogGraph.resolve("/db/changelog/master.yaml", List.of(root));
+
+    Assertions.assertEquals(
+        List.of(
+            "db/changelog/master.yaml",
+            "db/changelog/001-tables.xml",
+            "db/changelog/raw/tables.sql",
+            "db/changelog/002-data.json",
+            "db/changelog/sql/a.sql",
+            "db/changelog/sql/b.sql"),
+        graph.getNodes().stream().map(ChangelogGraph.Node::name).toList());
+  }
+
+  @Test
+  void shouldKeepPrefixKeysWhenChangelogIsAppended() throws Exception {
+    write("master.xml", """
+        <databaseChangeLog>
+          <include file="001.sql"/>
+          <include file="002.sql"/>
+        </databaseChangeLog>
+        """);
+    write("001.sql", "--changeset author:1");
+    write("002.sql", "--changeset author:2");
+    List<String> keys = ChangelogGraph.resolve("master.xml", List.of(root)).prefixKeys("seed");
+
+    write("master.xml", """
+        <databaseChangeLog>
+          <include file="001.sql"/>
+          <include file="002.sql"/>
+          <include file="003.sql"/>
+        </databaseChangeLog>
+        """);
+    write("003.sql", "--changeset author:3");
+    List<String> appendedKeys =
+        ChangelogGraph.resolve("master.xml", List.of(root)).prefixKeys("seed");
+    write("002.sql", "--changeset author:2-edited");
+    List<String> editedKeys =
+        ChangelogGraph.resolve("master.xml", List.of(root)).prefixKeys("seed");
+
+    Assertions.assertEquals(3, keys.size());
+    Assertions.assertEquals(keys, appendedKeys.subList(0, 3));
+    Assertions.assertEquals(keys.subList(0, 2), editedKeys.subList(0, 2));
+    Assertions.assertNotEquals(keys.get(2), editedKeys.get(2));
+  }
+
+  @Test
+  void shouldResolveSingleQuotedXmlAttributes() throws Exception {
+    write("master.xml", """
+        <databaseChangeLog>
+          <include file='001.xml' relativeToChangelogFile='true'/>
+        </databaseChangeLog>
+        """);
+    write("001.xml", """
+        <databaseChangeLog>
+          <changeSet id='1' author='author'>
+            <sqlFile path='001.sql' relativeToChangelogFile='true'/>
+          </changeSet>
+        </databaseChangeLog>
+        """);
+    write("001.sql", "create table data (key varchar(100));");
+
+    ChangelogGraph graph = ChangelogGraph.resolve("master.xml", List.of(root));
+
+    Assertions.assertEquals(List.of("master.xml", "001.xml", "001.sql"),
+        graph.getNodes().stream().map(ChangelogGraph.Node::name).toList());
+    Assertions.assertDoesNotThrow(graph::checkComplete);
+  }
+
+  @Test
+  void shouldBeIncompleteWhenReferenceHasPlaceholder() throws Exception {
+    write("master.yaml", """
+        databaseChangeLog:
+          - include:
+              file: ${schema}/tables.yaml
+        """);
+
+    assertIncomplete(List.of("${schema}/tables.yaml in master.yaml"));
+  }
+
+  @Test
+  void shouldBeIncompleteWhenClasspathReferenceIsOutsideRoots() throws Exception {
+    write("master.yaml", """
+        databaseChangeLog:
+          - include:
+              file: classpath:db/changelog/shared.yaml
+        """);
+
+    assertIncomplete(List.of("classpath:db/changelog/shared.yaml in master.yaml"));
+  }
+
+  @Test
+  void shouldBeIncompleteWhenReferenceIsAbsent() throws Exception {
+    write("master.yaml", """
+        databaseChangeLog:
+          - include:
+              file: 001.sql
+          - include:
+              file: 002.sql
+        """);
+    write("001.sql", "--changeset author:1");
+
+    assertIncomplete(List.of("002.sql in master.yaml"));
+  }
+
+  @Test
+  void shouldChangePrefixKeysWhenAggregatorIncludesAreChanged() throws Exception {
+    write("001.sql", "--changeset author:1");
+    write("002.sql", "--changeset author:2");
+    write("views/data.sql", "--changeset author:3");
+    write("003.sql", "--changeset author:4");
+    String master = """
+        databaseChangeLog:
+          - property:
+              name: schema
+              value: public
+          - include:
+              file: 001.sql
+              context: dev
+          - include:
+              file: 002.sql
+          - includeAll:
+              path: views
+              filter: sql
+        """;
+    List<String> keys = prefixKeys(master);
+    List<String> appendedKeys = prefixKeys(master + """
+          - include:
+              file: 003.sql
+        """);
+    List<String> propertyKeys = prefixKeys(master.replace("value: public", "value: data"));
+    List<String> contextKeys = prefixKeys(master.replace("context: dev", "context: prod"));
+    List<String> filterKeys = prefixKeys(master.replace("filter: sql", "filter: view"));
+
+    Assertions.assertEquals(4, keys.size());
+    Assertions.assertEquals(keys, appendedKeys.subList(0, 4));
+    Assertions.assertEquals(keys.get(0), propertyKeys.get(0));
+    Assertions.assertNotEquals(keys.get(1), propertyKeys.get(1));
+    Assertions.assertEquals(keys.get(0), contextKeys.get(0));
+    Assertions.assertNotEquals(keys.get(1), contextKeys.get(1));
+    Assertions.assertEquals(keys.subList(0, 3), filterKeys.subList(0, 3));
+    Assertions.assertNotEquals(keys.get(3), filterKeys.get(3));
+  }
+
+  @Test
+  void shouldFailWhenChangelogIsAbsent() {
+    Assertions.assertThrows(NoSuchFileException.class,
+        () -> ChangelogGraph.resolve("db/changelog/master.yaml", List.of(root)));
+  }
+
+  private List<String> prefixKeys(String master) throws Exception {
+    write("master.yaml", master);
+    return ChangelogGraph.resolve("master.yaml", List.of(root)).prefixKeys("seed");
+  }
+
+  private void assertIncomplete(List<String> unresolvedReferences) throws Exception {
+    ChangelogGraph graph = ChangelogGraph.resolve("master.yaml", List.of(root));
+
+    Assertions.assertEquals(unresolvedReferences, graph.getUnresolvedReferences());
+    Assertions.assertThrows(IOException.class, graph::checkComplete);
+    Assertions.assertThrows(IOException.class, () -> graph.prefixKeys("seed"));
+  }
+
+  private void write(String name, String content) throws Exception {
+    Path file = root.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Raman Babich
+ */
+class ChangelogWatcherTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final Duration QUIET_PERIOD = Duration.ofMillis(200);
+
+  @TempDir
+  private Path root;
+
+  @Test
+  void shouldCollectChangesUntilQuietPeriod() throws Exception {
+    Path changelogs = Files.createDirectories(root.resolve("changelogs"));
+    Path other = Files.createDirectories(root.resolve("other"));
+
+    try (ChangelogWatcher watcher = new ChangelogWatcher()) {
+      watcher.watch(Set.of(changelogs, other));
+      watcher.watch(Set.of(changelogs));
+      CompletableFuture<Set<Path>> changes = CompletableFuture.supplyAsync(() -> {
+        try {
+          return watcher.awaitChanges(QUIET_PERIOD);
+        } catch (InterruptedException ex) {
+          throw new IllegalStateException(ex);
+        }
+      });
+      Files.writeString(other.resolve("ignored.yaml"), "ignored", StandardCharsets.UTF_8);
+      Files.writeString(changelogs.resolve(".master.yaml.swp"), "swap", StandardCharsets.UTF_8);
+      Files.writeString(changelogs.resolve("master.yaml"), "databaseChangeLog:",
+          StandardCharsets.UTF_8);
+      Files.writeString(changelogs.resolve("tables.sql"), "create table data (key int);",
+          StandardCharsets.UTF_8);
+
+      Assertions.assertEquals(
+          Set.of(changelogs.resolve("master.yaml"), changelogs.resolve("tables.sql")),
+          changes.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+    }
+  }
+
+}
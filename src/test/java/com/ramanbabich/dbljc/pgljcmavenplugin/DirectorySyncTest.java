@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Raman Babich
+ */
+class DirectorySyncTest {
+
+  private static final FileTime OLD = FileTime.from(Instant.parse("2023-01-01T00:00:00Z"));
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void shouldWriteOnlyChangedFiles() throws Exception {
+    Path source = tempDir.resolve("source");
+    write(source.resolve("Tables.java"), "class Tables {}");
+    write(source.resolve("tables/Author.java"), "class Author { int id; }");
+    write(source.resolve("tables/Book.java"), "class Book {}");
+    Path target = tempDir.resolve("target");
+    write(target.resolve("Tables.java"), "class Tables {}");
+    write(target.resolve("tables/Author.java"), "class Author {}");
+    write(target.resolve("routines/Obsolete.java"), "class Obsolete {}");
+
+    DirectorySync.Result result = DirectorySync.sync(source, target);
+
+    Assertions.assertEquals(new DirectorySync.Result(2, 37, 1, 1), result);
+    Assertions.assertEquals(OLD, Files.getLastModifiedTime(target.resolve("Tables.java")));
+    Assertions.assertEquals("class Author { int id; }",
+        Files.readString(target.resolve("tables/Author.java"), StandardCharsets.UTF_8));
+    Assertions.assertEquals("class Book {}",
+        Files.readString(target.resolve("tables/Book.java"), StandardCharsets.UTF_8));
+    Assertions.assertFalse(Files.exists(target.resolve("routines")));
+  }
+
+  @Test
+  void shouldDeleteAllFilesWhenSourceIsAbsent() throws Exception {
+    Path target = tempDir.resolve("target");
+    write(target.resolve("Tables.java"), "class Tables {}");
+
+    DirectorySync.Result result = DirectorySync.sync(tempDir.resolve("source"), target);
+
+    Assertions.assertEquals(new DirectorySync.Result(0, 0, 0, 1), result);
+    Assertions.assertFalse(Files.exists(target.resolve("Tables.java")));
+  }
+
+  private static void write(Path file, String content) throws Exception {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(file, OLD);
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * @author Raman Babich
+ */
+class EarlyPostgresContainersTest {
+
+  private final List<PostgreSQLContainer<?>> started = new CopyOnWriteArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    EarlyPostgresContainers.stopUnclaimed();
+  }
+
+  @Test
+  void shouldStartNextContainerWhenClaimed() throws Exception {
+    EarlyPostgresContainers.expect("postgres", 2, false, this::start);
+
+    PostgreSQLContainer<?> first = EarlyPostgresContainers.claim("postgres").get();
+    PostgreSQLContainer<?> second = EarlyPostgresContainers.claim("postgres").get();
+
+    Assertions.assertNotSame(first, second);
+    Assertions.assertEquals(Set.of(first, second), Set.copyOf(started));
+    Assertions.assertNull(EarlyPostgresContainers.claim("postgres"));
+    Assertions.assertNull(EarlyPostgresContainers.claim("other"));
+  }
+
+  @Test
+  void shouldStopUnclaimedContainersWithoutWaitingForStart() throws Exception {
+    CountDownLatch starting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PostgreSQLContainer<?> container = Mockito.mock(PostgreSQLContainer.class);
+    EarlyPostgresContainers.expect("postgres", 1, false, () -> {
+      starting.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return container;
+    });
+    EarlyPostgresContainers.expect("reusable", 1, true, this::start);
+    Assertions.assertTrue(starting.await(10, TimeUnit.SECONDS));
+
+    EarlyPostgresContainers.stopUnclaimed();
+
+    Mockito.verify(container, Mockito.never()).close();
+    release.countDown();
+    Mockito.verify(container, Mockito.timeout(10_000)).close();
+    for (PostgreSQLContainer<?> reusable : started) {
+      Mockito.verify(reusable, Mockito.never()).close();
+    }
+    Assertions.assertNull(EarlyPostgresContainers.claim("postgres"));
+  }
+
+  private PostgreSQLContainer<?> start() {
+    PostgreSQLContainer<?> container = Mockito.mock(PostgreSQLContainer.class);
+    started.add(container);
+    return container;
+  }
+
+}
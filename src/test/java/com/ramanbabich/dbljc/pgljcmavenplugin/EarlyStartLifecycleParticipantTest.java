@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+/**
+ * @author Raman Babich
+ */
+class EarlyStartLifecycleParticipantTest {
+
+  @TempDir
+  private Path basedir;
+  private MavenProject project;
+  private Xpp3Dom configuration;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    write("src/main/resources/db/master.sql", "create table data (key varchar(100));");
+    write("target/generated-sources/jooq/org/jooq/generated/Tables.java", "class Tables {}");
+    Xpp3Dom changeLogFile = new Xpp3Dom("changeLogFile");
+    changeLogFile.setValue("db/master.sql");
+    Xpp3Dom liquibaseConfiguration = new Xpp3Dom("liquibaseConfiguration");
+    liquibaseConfiguration.addChild(changeLogFile);
+    configuration = new Xpp3Dom("configuration");
+    configuration.addChild(liquibaseConfiguration);
+    configuration.addChild(new Xpp3Dom("jooqConfiguration"));
+    project = project(configuration);
+    write("target/pgljc/default-cli/fingerprint", fingerprint());
+  }
+
+  @AfterEach
+  void tearDown() {
+    EarlyPostgresContainers.stopUnclaimed();
+  }
+
+  @Test
+  void shouldNotStartContainerOfUpToDateProject() throws Exception {
+    new EarlyStartLifecycleParticipant().afterProjectsRead(session());
+
+    Assertions.assertNull(EarlyPostgresContainers.claim(containerKey()));
+  }
+
+  @Test
+  void shouldStartContainerOfChangedProject() throws Exception {
+    write("src/main/resources/db/master.sql", "create table data (key varchar(200));");
+
+    new EarlyStartLifecycleParticipant().afterProjectsRead(session());
+
+    Assertions.assertNotNull(EarlyPostgresContainers.claim(containerKey()));
+  }
+
+  private static String containerKey() throws Exception {
+    return PostgresContainerSettings.of(
+        PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME, true, List.of(), false).key();
+  }
+
+  private String fingerprint() throws Exception {
+    return Fingerprint.ofGeneration(AbstractGenerateMojo.generations(configuration).get(0),
+        List.of(PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME,
+            AbstractGenerateMojo.DEFAULT_POSTGRES_JDBC_DRIVER_VERSION,
+            AbstractGenerateMojo.DEFAULT_LIQUIBASE_MAVEN_PLUGIN_VERSION,
+            AbstractGenerateMojo.DEFAULT_JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION),
+        basedir, AbstractGenerateMojo.sourceChangelogRoots(project));
+  }
+
+  private MavenProject project(Xpp3Dom configuration) {
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("com.ramanbabich.dbljc");
+    plugin.setArtifactId("pgljc-maven-plugin");
+    plugin.setVersion("version");
+    plugin.setConfiguration(configuration);
+    Resource resource = new Resource();
+    resource.setDirectory(basedir.resolve("src/main/resources").toString());
+    Build build = new Build();
+    build.setDirectory(basedir.resolve("target").toString());
+    build.setResources(List.of(resource));
+    build.setPlugins(List.of(plugin));
+    Model model = new Model();
+    model.setGroupId("group");
+    model.setArtifactId("artifact");
+    model.setVersion("version");
+    model.setBuild(build);
+    MavenProject project = new MavenProject(model);
+    project.setFile(basedir.resolve("pom.xml").toFile());
+    return project;
+  }
+
+  private MavenSession session() {
+    MavenSession session = Mockito.mock(MavenSession.class);
+    Mockito.when(session.getGoals()).thenReturn(List.of("pgljc:generate"));
+    Mockito.when(session.getProjects()).thenReturn(List.of(project));
+    return session;
+  }
+
+  private void write(String file, String content) throws Exception {
+    Path path = basedir.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, content, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * @author Raman Babich
+ */
+class EmbeddedPostgresServerTest {
+
+  @Test
+  void shouldStartEphemeralServer() throws Exception {
+    PostgresContainerSettings settings = PostgresContainerSettings.of(
+        PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME, true, List.of("work_mem=16MB"),
+        false);
+
+    try (PostgresServer server = EmbeddedPostgresServer.start(settings);
+        Connection connection = server.database().connect();
+        Statement statement = connection.createStatement()) {
+      Assertions.assertEquals("off", show(statement, "fsync"));
+      Assertions.assertEquals("16MB", show(statement, "work_mem"));
+      Assertions.assertEquals("postgres", server.database().databaseName());
+    }
+  }
+
+  @Test
+  void shouldStartFromResolvedBinariesArtifact() throws Exception {
+    String artifact = EmbeddedPostgresServer.binariesArtifact(
+        EmbeddedPostgresServer.DEFAULT_BINARIES_VERSION);
+    RepositorySystem repositorySystem = classpathRepositorySystem();
+    PostgresContainerSettings settings = PostgresContainerSettings.of(
+        PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME, true, List.of(), false);
+
+    try (PostgresServer server = EmbeddedPostgresServer.start(settings,
+        new EmbeddedPostgresServer.ArtifactBinaryResolver(repositorySystem, null, List.of(),
+            EmbeddedPostgresServer.DEFAULT_BINARIES_VERSION));
+        Connection connection = server.database().connect();
+        Statement statement = connection.createStatement()) {
+      Assertions.assertEquals("off", show(statement, "fsync"));
+    }
+    ArgumentCaptor<ArtifactRequest> request = ArgumentCaptor.forClass(ArtifactRequest.class);
+    Mockito.verify(repositorySystem).resolveArtifact(ArgumentMatchers.any(), request.capture());
+    Assertions.assertEquals(new DefaultArtifact(artifact), request.getValue().getArtifact()
+        .setFile(null));
+  }
+
+  @Test
+  void shouldResolveBinariesArtifactOfHost() {
+    Assertions.assertEquals("embedded-postgres-binaries-linux-amd64",
+        EmbeddedPostgresServer.binariesArtifactId("Linux", "amd64", false));
+    Assertions.assertEquals("embedded-postgres-binaries-linux-arm64v8-alpine",
+        EmbeddedPostgresServer.binariesArtifactId("Linux", "aarch64", true));
+    Assertions.assertEquals("embedded-postgres-binaries-darwin-arm64v8",
+        EmbeddedPostgresServer.binariesArtifactId("Mac OS X", "aarch64", false));
+    Assertions.assertEquals("embedded-postgres-binaries-darwin-amd64",
+        EmbeddedPostgresServer.binariesArtifactId("Mac OS X", "x86_64", false));
+    Assertions.assertEquals("embedded-postgres-binaries-windows-amd64",
+        EmbeddedPostgresServer.binariesArtifactId("Windows 11", "amd64", false));
+  }
+
+  /**
+   * Returns the repository system resolving the artifacts to the jars of the test classpath.
+   */
+  static RepositorySystem classpathRepositorySystem() throws Exception {
+    RepositorySystem repositorySystem = Mockito.mock(RepositorySystem.class);
+    Mockito.doAnswer(invocation -> {
+      ArtifactRequest request = invocation.getArgument(1);
+      return new ArtifactResult(request).setArtifact(
+          request.getArtifact().setFile(classpathJar(request.getArtifact().getArtifactId() + '-'
+              + request.getArtifact().getVersion() + ".jar")));
+    }).when(repositorySystem).resolveArtifact(ArgumentMatchers.any(), ArgumentMatchers.any());
+    return repositorySystem;
+  }
+
+  private static File classpathJar(String fileName) throws Exception {
+    for (URL manifest : Collections.list(EmbeddedPostgresServerTest.class.getClassLoader()
+        .getResources("META-INF/MANIFEST.MF"))) {
+      String jar = manifest.getPath().substring(0, manifest.getPath().indexOf('!'));
+      if (jar.endsWith('/' + fileName)) {
+        return Path.of(URI.create(jar)).toFile();
+      }
+    }
+    throw new IllegalStateException(fileName + " is not found in the classpath");
+  }
+
+  private static String show(Statement statement, String setting) throws Exception {
+    try (ResultSet resultSet = statement.executeQuery("SHOW " + setting)) {
+      Assertions.assertTrue(resultSet.next());
+      return resultSet.getString(1);
+    }
+  }
+
+}
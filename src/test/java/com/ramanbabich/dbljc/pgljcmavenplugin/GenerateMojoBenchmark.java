@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.maven.shared.verifier.Verifier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the generation of the projects with the synthesized changelogs of different sizes.
+ * Every measurement is the wall time of the maven build together with the report of the plugin
+ * execution, all of them are written to the single json file to be compared with the baseline.
+ *
+ * @author Raman Babich
+ */
+class GenerateMojoBenchmark {
+
+  private static final String TEMPLATE_DIR = "/src/test/resources/benchmarks/generate";
+  private static final String CHANGELOG_FILE =
+      "src/main/resources/db/changelog/db.changelog-master.yaml";
+  private static final String REPORT_FILE = "target/pgljc/pgljc-generate/report.json";
+
+  @Test
+  void shouldMeasureGenerationAcrossSchemaSizes() throws Exception {
+    Path benchmarkDir = Path.of(System.getProperty("user.dir"), "target", "benchmark");
+    List<Integer> tableCounts = Arrays.stream(
+            System.getProperty("benchmark.table-counts", "10,100,1000,5000").split(","))
+        .map(String::trim)
+        .map(Integer::valueOf)
+        .toList();
+    int iterations = Integer.getInteger("benchmark.iterations", 1);
+
+    // the first build resolves the plugins, so it is not measured
+    measure(prepareProject(benchmarkDir.resolve("warmup"), tableCounts.get(0)));
+    List<String> results = new ArrayList<>();
+    for (int tables : tableCounts) {
+      Path projectDir = prepareProject(benchmarkDir.resolve("tables-" + tables), tables);
+      for (int iteration = 1; iteration <= iterations; ++iteration) {
+        long millis = measure(projectDir);
+        String report = Files.readString(projectDir.resolve(REPORT_FILE), StandardCharsets.UTF_8);
+        System.out.printf("%d tables, iteration %d: %d ms%n", tables, iteration, millis);
+        results.add(String.format(
+            "    {\"tables\": %d, \"iteration\": %d, \"wallMillis\": %d, \"report\": %s}",
+            tables, iteration, millis, report.trim().replace("\n", "\n    ")));
+      }
+    }
+
+    Path resultsFile = Path.of(System.getProperty("benchmark.results-file",
+        benchmarkDir.resolve("results.json").toString()));
+    Files.createDirectories(resultsFile.toAbsolutePath().getParent());
+    Files.writeString(resultsFile, String.format("""
+            {
+              "postgresProvider": "%s",
+              "executionEngine": "%s",
+              "fastApply": %s,
+              "goal": "%s",
+              "results": [
+            %s
+              ]
+            }
+            """, postgresProvider(), executionEngine(), fastApply(), goal(),
+            String.join(",\n", results)),
+        StandardCharsets.UTF_8);
+    System.out.println("Benchmark results are written to " + resultsFile);
+  }
+
+  private long measure(Path projectDir) throws Exception {
+    Verifier verifier = new Verifier(projectDir.toString());
+    String localRepo = System.getProperty("verifier.local-repo");
+    if (localRepo != null) {
+      verifier.setLocalRepo(localRepo);
+    }
+    verifier.addCliArgument(
+        "-Dpgljc-maven-plugin.version=" + System.getProperty("pgljc-maven-plugin.version"));
+    verifier.addCliArgument("-Dpgljc.postgres-provider=" + postgresProvider());
+    verifier.addCliArgument("-Dpgljc.execution-engine=" + executionEngine());
+    verifier.addCliArgument("-Dpgljc.fast-apply=" + fastApply());
+    verifier.addCliArgument("-Dpgljc.goal=" + goal());
+    verifier.addCliArgument("generate-sources");
+    long start = System.nanoTime();
+    verifier.execute();
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    verifier.verifyFilePresent(REPORT_FILE);
+    return millis;
+  }
+
+  private static Path prepareProject(Path projectDir, int tables) throws Exception {
+    GenerationCache.deleteRecursively(projectDir);
+    Path templateDir = Path.of(System.getProperty("user.dir") + TEMPLATE_DIR);
+    try (Stream<Path> paths = Files.walk(templateDir)) {
+      for (Path path : paths.filter(Files::isRegularFile).toList()) {
+        Path copy = projectDir.resolve(templateDir.relativize(path).toString());
+        Files.createDirectories(copy.getParent());
+        Files.copy(path, copy);
+      }
+    }
+    Path changelog = projectDir.resolve(CHANGELOG_FILE);
+    Files.createDirectories(changelog.getParent());
+    Files.writeString(changelog, changelog(tables), StandardCharsets.UTF_8);
+    return projectDir;
+  }
+
+  /**
+   * Synthesizes the changelog with a changeset per table, every table references the previous
+   * one, so the generated keys and relations grow with the schema as well.
+   */
+  private static String changelog(int tables) {
+    StringBuilder changelog = new StringBuilder("databaseChangeLog:\n");
+    for (int i = 1; i <= tables; ++i) {
+      changelog.append(String.format("""
+            - changeSet:
+                id: 'table-%1$d'
+                author: 'benchmark'
+                changes:
+                  - createTable:
+                      tableName: 'table_%1$d'
+                      columns:
+                        - column: {name: 'id', type: 'bigint', constraints: {primaryKey: true}}
+                        - column:
+                            name: 'name'
+                            type: 'varchar(255)'
+                            constraints: {nullable: false}
+                        - column: {name: 'amount', type: 'numeric(19, 2)'}
+                        - column: {name: 'created_at', type: 'timestamp'}
+                        - column: {name: 'parent_id', type: 'bigint'}
+                  - createIndex:
+                      tableName: 'table_%1$d'
+                      indexName: 'table_%1$d_name_idx'
+                      columns:
+                        - column: {name: 'name'}
+            """, i));
+      if (i > 1) {
+        changelog.append(String.format("""
+                    - addForeignKeyConstraint:
+                        baseTableName: 'table_%1$d'
+                        baseColumnNames: 'parent_id'
+                        constraintName: 'table_%1$d_parent_fk'
+                        referencedTableName: 'table_%2$d'
+                        referencedColumnNames: 'id'
+              """, i, i - 1));
+      }
+    }
+    return changelog.toString();
+  }
+
+  private static String postgresProvider() {
+    return System.getProperty("benchmark.postgres-provider", "docker");
+  }
+
+  private static String executionEngine() {
+    return System.getProperty("benchmark.execution-engine", "maven");
+  }
+
+  private static boolean fastApply() {
+    return Boolean.getBoolean("benchmark.fast-apply");
+  }
+
+  private static String goal() {
+    return System.getProperty("benchmark.goal", "generate");
+  }
+
+}
@@ -16,8 +16,16 @@
 
 package com.ramanbabich.dbljc.pgljcmavenplugin;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
 import org.apache.maven.shared.verifier.Verifier;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * @author Raman Babich
@@ -36,9 +44,135 @@ class GenerateMojoIT {
         "target/classes/com/ramanbabich/dbljc/pgljcmavenpluginit/jooq/tables/Data.class");
   }
 
+  @Test
+  void shouldGenerateWithoutFork() throws Exception {
+    String testPomDir = "/src/test/resources/integration-tests/should-generate-no-fork";
+    Verifier verifier = buildVerifier(testPomDir);
+    verifier.addCliArguments("compile");
+
+    verifier.execute();
+
+    verifier.verifyFilePresent(
+        "target/classes/com/ramanbabich/dbljc/pgljcmavenpluginit/jooq/tables/Data.class");
+  }
+
+  @Test
+  void shouldGenerateInProcessWithEmbeddedPostgres() throws Exception {
+    String testPomDir = "/src/test/resources/integration-tests/should-generate-in-process";
+    Verifier verifier = buildVerifier(testPomDir);
+    verifier.addCliArguments("clean", "compile");
+
+    verifier.execute();
+
+    String table = "target/generated-sources/jooq/"
+        + "com/ramanbabich/dbljc/pgljcmavenpluginit/jooq/tables/Data.java";
+    verifier.verifyFilePresent(table);
+    String source = Files.readString(
+        Path.of(verifier.getBasedir(), table), StandardCharsets.UTF_8);
+    Assertions.assertTrue(source.contains("TableField<DataRecord, String> KEY"), source);
+    Assertions.assertTrue(source.contains("TableField<DataRecord, String> VALUE"), source);
+    verifier.verifyFilePresent(
+        "target/classes/com/ramanbabich/dbljc/pgljcmavenpluginit/jooq/tables/Data.class");
+    verifier.verifyFilePresent("target/pgljc/pgljc-generate/report.json");
+  }
+
+  @Test
+  void shouldApplyOwnChangelogToEveryConcurrentGeneration() throws Exception {
+    String testPomDir = "/src/test/resources/integration-tests/should-generate-concurrently";
+    Verifier verifier = buildVerifier(testPomDir);
+    verifier.addCliArguments("clean", "compile");
+
+    verifier.execute();
+
+    verifyOwnTables(verifier);
+  }
+
+  @Test
+  void shouldApplyOwnChangelogToEveryConcurrentGenerationInProcess() throws Exception {
+    String testPomDir = "/src/test/resources/integration-tests/should-generate-concurrently";
+    Verifier verifier = buildVerifier(testPomDir);
+    verifier.addCliArgument("-Dpgljc.execution-engine=in-process");
+    verifier.addCliArguments("clean", "compile");
+
+    verifier.execute();
+
+    verifyOwnTables(verifier);
+  }
+
+  @Test
+  void shouldMissBuildCacheWhenChangelogOutsideSourcesIsEdited(@TempDir Path tempDir)
+      throws Exception {
+    Path basedir = tempDir.resolve("project");
+    copyDirectory(Path.of(System.getProperty("user.dir"),
+        "src/test/resources/integration-tests/should-hit-build-cache"), basedir);
+    String cacheLocation = "-Dmaven.build.cache.location=" + tempDir.resolve("build-cache");
+    Verifier verifier = buildVerifier(basedir);
+    verifier.addCliArguments(cacheLocation, "compile");
+    verifier.setLogFileName("log-build.txt");
+    verifier.setAutoclean(false);
+    verifier.execute();
+    verifier = buildVerifier(basedir);
+    verifier.addCliArguments(cacheLocation, "compile");
+    verifier.setLogFileName("log-hit.txt");
+    verifier.setAutoclean(false);
+    verifier.execute();
+    verifier.verifyTextInLog("Found cached build, restoring");
+
+    Path tables = basedir.resolve("db/tables.yaml");
+    Files.writeString(tables, Files.readString(tables, StandardCharsets.UTF_8) + """
+          - changeSet:
+              id: '0.2'
+              author: 'raman babich'
+              changes:
+                - addColumn:
+                    tableName: 'data'
+                    columns:
+                      - column:
+                          name: 'value'
+                          type: 'varchar(500)'
+        """, StandardCharsets.UTF_8);
+    verifier = buildVerifier(basedir);
+    verifier.addCliArguments(cacheLocation, "compile");
+    verifier.setLogFileName("log-miss.txt");
+    verifier.setAutoclean(false);
+    verifier.execute();
+
+    Assertions.assertFalse(Files.readString(basedir.resolve("log-miss.txt"),
+        StandardCharsets.UTF_8).contains("Found cached build, restoring"));
+    String source = Files.readString(basedir.resolve("target/generated-sources/jooq/"
+        + "com/ramanbabich/dbljc/pgljcmavenpluginit/jooq/tables/Data.java"),
+        StandardCharsets.UTF_8);
+    Assertions.assertTrue(source.contains("TableField<DataRecord, String> VALUE"), source);
+  }
+
+  /**
+   * Verifies that every generation of the concurrent generations IT has only the tables of its
+   * own changelog.
+   */
+  private static void verifyOwnTables(Verifier verifier) throws Exception {
+    List<String> generations = List.of("alpha", "beta", "gamma", "delta");
+    for (String generation : generations) {
+      String tables = "target/generated-sources/jooq/"
+          + "com/ramanbabich/dbljc/pgljcmavenpluginit/jooq/" + generation + "/tables/";
+      for (String other : generations) {
+        String prefix = Character.toUpperCase(other.charAt(0)) + other.substring(1);
+        for (String table : List.of("One", "Two", "Three")) {
+          if (other.equals(generation)) {
+            verifier.verifyFilePresent(tables + prefix + table + ".java");
+          } else {
+            verifier.verifyFileNotPresent(tables + prefix + table + ".java");
+          }
+        }
+      }
+    }
+  }
+
   private Verifier buildVerifier(String pomDir) throws Exception {
-    String userDir = System.getProperty("user.dir");
-    Verifier verifier = new Verifier(userDir + pomDir);
+    return buildVerifier(Path.of(System.getProperty("user.dir") + pomDir));
+  }
+
+  private Verifier buildVerifier(Path basedir) throws Exception {
+    Verifier verifier = new Verifier(basedir.toString());
     String localRepo = System.getProperty("verifier.local-repo");
     if (localRepo != null) {
       verifier.setLocalRepo(localRepo);
@@ -48,4 +182,17 @@ class GenerateMojoIT {
     return verifier;
   }
 
+  private static void copyDirectory(Path source, Path target) throws IOException {
+    try (Stream<Path> files = Files.walk(source)) {
+      for (Path file : files.toList()) {
+        Path copy = target.resolve(source.relativize(file).toString());
+        if (Files.isDirectory(file)) {
+          Files.createDirectories(copy);
+        } else {
+          Files.copy(file, copy);
+        }
+      }
+    }
+  }
+
 }
@@ -17,21 +17,37 @@
 package com.ramanbabich.dbljc.pgljcmavenplugin;
 
 import java.io.ByteArrayInputStream;
-import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.postgresql.Driver;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.twdata.maven.mojoexecutor.MojoExecutor;
 import org.twdata.maven.mojoexecutor.MojoExecutor.ExecutionEnvironment;
@@ -58,6 +74,10 @@ class GenerateMojoTest {
   private final MavenProject mavenProject = Mockito.mock(MavenProject.class);
   private final MavenSession mavenSession = Mockito.mock(MavenSession.class);
   private final BuildPluginManager buildPluginManager = Mockito.mock(BuildPluginManager.class);
+  private final MojoExecution mojoExecution = Mockito.mock(MojoExecution.class);
+
+  @TempDir
+  private Path basedir;
 
   @Test
   @SuppressWarnings("rawtypes")
@@ -114,9 +134,9 @@ class GenerateMojoTest {
       Assertions.assertEquals(1, pgMockedConstruction.constructed().size());
       PostgreSQLContainer pg = pgMockedConstruction.constructed().get(0);
       Mockito.verify(pg).start();
-      Mockito.verify(pg, Mockito.times(2)).getJdbcUrl();
-      Mockito.verify(pg, Mockito.times(2)).getUsername();
-      Mockito.verify(pg, Mockito.times(2)).getPassword();
+      Mockito.verify(pg).getJdbcUrl();
+      Mockito.verify(pg).getUsername();
+      Mockito.verify(pg).getPassword();
       Mockito.verify(pg).close();
 
       mojoExecutor.verify(() ->
@@ -153,6 +173,7 @@ class GenerateMojoTest {
                   </database>
                   <target>
                     <packageName>com.ramanbabich.dbljc.pgljcmavenplugin.jooq</packageName>
+                    <directory>%s</directory>
                   </target>
                 </generator>
                 <jdbc>
@@ -162,13 +183,506 @@ class GenerateMojoTest {
                   <password>%s</password>
                 </jdbc>
               </configuration>
-              """, JOOQ_POSTGRES_META, POSTGRES_DRIVER_NAME, jdbcUrl, username, password)
+              """, JOOQ_POSTGRES_META, basedir.resolve("target/pgljc/pgljc-generate/staging"),
+                  POSTGRES_DRIVER_NAME, jdbcUrl, username, password)
                       .getBytes(StandardCharsets.UTF_8)),
                   StandardCharsets.UTF_8.name())),
               Mockito.eq(executionEnvironment)));
     }
   }
 
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldSkipGenerationWhenInputsAreUnchanged() throws Exception {
+    GenerateMojo mojo = buildIncrementalMojo();
+    Path changelog = basedir.resolve("src/main/resources/db/changelog/master.yaml");
+    Path targetDirectory = basedir.resolve("target/generated-sources/jooq");
+    Path packageDirectory = targetDirectory.resolve("com/ramanbabich/dbljc/pgljcmavenplugin/jooq");
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class);
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojo.execute();
+      Assertions.assertTrue(Files.isRegularFile(
+          basedir.resolve("target/pgljc/pgljc-generate/fingerprint")));
+      Files.createDirectories(packageDirectory);
+      Files.writeString(packageDirectory.resolve("Tables.java"), "", StandardCharsets.UTF_8);
+
+      mojo.execute();
+      Assertions.assertEquals(1, pgMockedConstruction.constructed().size());
+      Mockito.verify(mavenProject, Mockito.times(2))
+          .addCompileSourceRoot(targetDirectory.toString());
+
+      Files.writeString(changelog, "databaseChangeLog: [{}]", StandardCharsets.UTF_8);
+      mojo.execute();
+      Assertions.assertEquals(2, pgMockedConstruction.constructed().size());
+      mojoExecutor.verify(
+          () -> MojoExecutor.executeMojo(Mockito.any(), Mockito.any(), Mockito.any(),
+              Mockito.<ExecutionEnvironment>any()),
+          Mockito.times(4));
+    }
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldRegenerateWhenPackageDirectoryIsDeleted() throws Exception {
+    GenerateMojo mojo = buildIncrementalMojo();
+    Path targetDirectory = basedir.resolve("target/generated-sources/jooq");
+    Path packageDirectory = targetDirectory.resolve("com/ramanbabich/dbljc/pgljcmavenplugin/jooq");
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class);
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojo.execute();
+      Files.createDirectories(packageDirectory);
+      Files.writeString(packageDirectory.resolve("Tables.java"), "", StandardCharsets.UTF_8);
+      // the sources of another generation keep the target directory not empty
+      Files.createDirectories(targetDirectory.resolve("other"));
+      Files.writeString(targetDirectory.resolve("other/Tables.java"), "", StandardCharsets.UTF_8);
+      GenerationCache.deleteRecursively(packageDirectory);
+
+      mojo.execute();
+      Assertions.assertTrue(Files.isRegularFile(
+          basedir.resolve("target/pgljc/pgljc-generate/fingerprint")));
+      Assertions.assertEquals(2, pgMockedConstruction.constructed().size());
+    }
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldRestoreGeneratedSourcesFromCache() throws Exception {
+    GenerateMojo mojo = buildIncrementalMojo();
+    MojoTestSupport.setMojoField(mojo, "incremental", false);
+    MojoTestSupport.setMojoField(mojo, "cacheEnabled", true);
+    MojoTestSupport.setMojoField(mojo, "cacheDirectory", basedir.resolve("cache").toFile());
+    MojoTestSupport.setMojoField(mojo, "cacheMaxSizeMegabytes", 1L);
+    MojoTestSupport.setMojoField(mojo, "cacheMaxAgeDays", 1L);
+    String packagePath = "com/ramanbabich/dbljc/pgljcmavenplugin/jooq";
+    Path stagingPackageDirectory =
+        basedir.resolve("target/pgljc/pgljc-generate/staging").resolve(packagePath);
+    Path packageDirectory = basedir.resolve("target/generated-sources/jooq").resolve(packagePath);
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class);
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojoExecutor.when(() -> MojoExecutor.goal(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL))
+          .thenReturn(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL);
+      mojoExecutor.when(() -> MojoExecutor.executeMojo(Mockito.any(),
+              Mockito.eq(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL), Mockito.any(),
+              Mockito.<ExecutionEnvironment>any()))
+          .thenAnswer(invocation -> {
+            Files.createDirectories(stagingPackageDirectory);
+            return Files.writeString(stagingPackageDirectory.resolve("Tables.java"),
+                "class Tables {}", StandardCharsets.UTF_8);
+          });
+      mojo.execute();
+      GenerationCache.deleteRecursively(basedir.resolve("target"));
+
+      mojo.execute();
+      Assertions.assertEquals(1, pgMockedConstruction.constructed().size());
+      mojoExecutor.verify(
+          () -> MojoExecutor.executeMojo(Mockito.any(), Mockito.any(), Mockito.any(),
+              Mockito.<ExecutionEnvironment>any()),
+          Mockito.times(2));
+      Assertions.assertEquals("class Tables {}",
+          Files.readString(packageDirectory.resolve("Tables.java"), StandardCharsets.UTF_8));
+    }
+  }
+
+  private GenerateMojo buildIncrementalMojo() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    MojoTestSupport.setMojoField(mojo, "incremental", true);
+    MojoTestSupport.setMojoField(mojo, "workDirectory", basedir.resolve("target/pgljc").toFile());
+    Mockito.doReturn("pgljc-generate").when(mojoExecution).getExecutionId();
+    Build build = new Build();
+    build.setDirectory(basedir.resolve("target").toString());
+    build.setOutputDirectory(basedir.resolve("target/classes").toString());
+    Mockito.doReturn(build).when(mavenProject).getBuild();
+    Mockito.doReturn(basedir.toFile()).when(mavenProject).getBasedir();
+    Resource resource = new Resource();
+    resource.setDirectory(basedir.resolve("src/main/resources").toString());
+    Mockito.doReturn(List.of(resource)).when(mavenProject).getResources();
+    Path changelog = basedir.resolve("src/main/resources/db/changelog/master.yaml");
+    Files.createDirectories(changelog.getParent());
+    Files.writeString(changelog, "databaseChangeLog: []", StandardCharsets.UTF_8);
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doAnswer(invocation -> Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration>
+                <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+              </liquibaseConfiguration>
+              <jooqConfiguration>
+                <generator>
+                  <target>
+                    <packageName>com.ramanbabich.dbljc.pgljcmavenplugin.jooq</packageName>
+                  </target>
+                </generator>
+              </jooqConfiguration>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+    return mojo;
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldWriteReport() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doReturn(Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration/>
+              <jooqConfiguration/>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+    Path packageDirectory =
+        basedir.resolve("target/pgljc/pgljc-generate/staging/org/jooq/generated");
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class, (mock, context) ->
+            Mockito.doReturn("jdbc:postgresql://localhost:1/test").when(mock).getJdbcUrl());
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojoExecutor.when(() -> MojoExecutor.goal(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL))
+          .thenReturn(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL);
+      mojoExecutor.when(() -> MojoExecutor.executeMojo(Mockito.any(),
+              Mockito.eq(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL), Mockito.any(),
+              Mockito.<ExecutionEnvironment>any()))
+          .thenAnswer(invocation -> {
+            Files.createDirectories(packageDirectory);
+            return Files.writeString(packageDirectory.resolve("Tables.java"), "class Tables {}",
+                StandardCharsets.UTF_8);
+          });
+      mojo.execute();
+    }
+
+    String report = Files.readString(
+        basedir.resolve("target/pgljc/pgljc-generate/report.json"), StandardCharsets.UTF_8);
+    for (String phase : List.of(
+        "imagePull", "containerStart", "liquibaseUpdate", "jooqGenerate", "sourcesSync",
+        "containerStop")) {
+      Assertions.assertTrue(report.contains('"' + phase + "\": "), phase);
+    }
+    Assertions.assertTrue(report.contains("{\"id\": null, \"status\": \"generated\", "
+        + "\"changesets\": null, \"files\": 1, \"bytes\": 15, \"writtenBytes\": 15}"), report);
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldSkipJooqWhenCatalogIsUnchanged() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    MojoTestSupport.setMojoField(mojo, "catalogSnapshots", true);
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doAnswer(invocation -> Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration/>
+              <jooqConfiguration/>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+    Path packageDirectory =
+        basedir.resolve("target/pgljc/pgljc-generate/staging/org/jooq/generated");
+    Statement statement = Mockito.mock(Statement.class);
+    Connection connection = Mockito.mock(Connection.class);
+    Mockito.doReturn(statement).when(connection).createStatement();
+    ResultSet resultSet = Mockito.mock(ResultSet.class);
+    Mockito.doReturn(Mockito.mock(ResultSetMetaData.class)).when(resultSet).getMetaData();
+    Mockito.doReturn(resultSet).when(statement).executeQuery(Mockito.anyString());
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class, (mock, context) ->
+            Mockito.doReturn("jdbc:postgresql://localhost:1/test").when(mock).getJdbcUrl());
+        MockedConstruction<Driver> driverMockedConstruction =
+            Mockito.mockConstruction(Driver.class, (mock, context) ->
+                Mockito.doReturn(connection).when(mock)
+                    .connect(Mockito.anyString(), Mockito.any()));
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojoExecutor.when(() -> MojoExecutor.goal(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL))
+          .thenReturn(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL);
+      mojoExecutor.when(() -> MojoExecutor.executeMojo(Mockito.any(),
+              Mockito.eq(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL), Mockito.any(),
+              Mockito.<ExecutionEnvironment>any()))
+          .thenAnswer(invocation -> {
+            Files.createDirectories(packageDirectory);
+            return Files.writeString(packageDirectory.resolve("Tables.java"), "class Tables {}",
+                StandardCharsets.UTF_8);
+          });
+      mojo.execute();
+      mojo.execute();
+
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(Mockito.any(),
+              Mockito.eq(JOOQ_CODEGEN_MAVEN_PLUGIN_GOAL), Mockito.any(),
+              Mockito.<ExecutionEnvironment>any()),
+          Mockito.times(1));
+    }
+
+    Assertions.assertTrue(Files.isRegularFile(
+        basedir.resolve("target/generated-sources/jooq/org/jooq/generated/Tables.java")));
+    String report = Files.readString(
+        basedir.resolve("target/pgljc/pgljc-generate/report.json"), StandardCharsets.UTF_8);
+    Assertions.assertTrue(report.contains("\"status\": \"catalog-unchanged\""), report);
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldStartEphemeralPostgres() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    MojoTestSupport.setMojoField(mojo, "ephemeralPostgres", true);
+    MojoTestSupport.setMojoField(mojo, "postgresServerOptions", List.of("shared_buffers=1GB"));
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doReturn(Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration/>
+              <jooqConfiguration/>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class);
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojo.execute();
+
+      PostgreSQLContainer pg = pgMockedConstruction.constructed().get(0);
+      ArgumentCaptor<String[]> command = ArgumentCaptor.forClass(String[].class);
+      Mockito.verify(pg).setCommand(command.capture());
+      List<String> arguments = List.of(command.getValue());
+      Assertions.assertEquals("postgres", arguments.get(0));
+      Assertions.assertTrue(String.join(" ", arguments).contains("-c fsync=off"));
+      Assertions.assertTrue(String.join(" ", arguments).contains("-c synchronous_commit=off"));
+      Assertions.assertEquals(
+          List.of("-c", "shared_buffers=1GB"), arguments.subList(arguments.size() - 2,
+              arguments.size()));
+      Mockito.verify(pg).withTmpFs(Map.of("/var/lib/postgresql/data", "rw"));
+    }
+
+    MojoTestSupport.setMojoField(mojo, "postgresServerOptions", List.of("-N 10"));
+    Assertions.assertThrows(MojoExecutionException.class, mojo::execute);
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldReuseContainerAndIsolateExecutionsByDatabase() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    MojoTestSupport.setMojoField(mojo, "reuseContainer", true);
+    MojoTestSupport.setMojoField(mojo, "postgresDockerImageName", "reusable-" + UUID.randomUUID());
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doAnswer(invocation -> Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration>
+                <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+              </liquibaseConfiguration>
+              <jooqConfiguration/>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+    Statement statement = Mockito.mock(Statement.class);
+    Connection connection = Mockito.mock(Connection.class);
+    Mockito.doReturn(statement).when(connection).createStatement();
+    Mockito.doReturn(Mockito.mock(ResultSet.class)).when(statement)
+        .executeQuery(Mockito.anyString());
+    Mockito.doReturn(Mockito.mock(PreparedStatement.class))
+        .when(connection).prepareStatement(Mockito.anyString());
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class, (mock, context) -> {
+          Mockito.doReturn("jdbc:postgresql://localhost:5432/test?loggerLevel=OFF")
+              .when(mock).getJdbcUrl();
+          Mockito.doReturn("test").when(mock).getUsername();
+          Mockito.doReturn("test").when(mock).getPassword();
+        });
+        MockedConstruction<Driver> driverMockedConstruction =
+            Mockito.mockConstruction(Driver.class, (mock, context) ->
+                Mockito.doReturn(connection).when(mock)
+                    .connect(Mockito.anyString(), Mockito.any()));
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojo.execute();
+      mojo.execute();
+
+      Assertions.assertEquals(1, pgMockedConstruction.constructed().size());
+      PostgreSQLContainer pg = pgMockedConstruction.constructed().get(0);
+      Mockito.verify(pg).withReuse(true);
+      Mockito.verify(pg).start();
+      Mockito.verify(pg, Mockito.never()).close();
+      ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+      Mockito.verify(statement, Mockito.times(4)).execute(sql.capture());
+      Assertions.assertTrue(sql.getAllValues().get(0).startsWith("CREATE DATABASE \"pgljc_"));
+      Assertions.assertTrue(sql.getAllValues().get(1).startsWith("DROP DATABASE IF EXISTS"));
+      Assertions.assertNotEquals(sql.getAllValues().get(0), sql.getAllValues().get(2));
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(
+          Mockito.any(),
+          Mockito.any(),
+          Mockito.argThat(configuration -> configuration.getChild("url") != null
+              && configuration.getChild("url").getValue()
+                  .matches("jdbc:postgresql://localhost:5432/pgljc_\\w+\\?loggerLevel=OFF")),
+          Mockito.<ExecutionEnvironment>any()),
+          Mockito.times(2));
+    }
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldPassOwnConfigurationCopyToEveryExecution() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    MojoTestSupport.setMojoField(mojo, "reuseContainer", true);
+    MojoTestSupport.setMojoField(mojo, "postgresDockerImageName", "reusable-" + UUID.randomUUID());
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    String configurationXml = """
+        <configuration>
+          <liquibaseConfiguration>
+            <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+          </liquibaseConfiguration>
+          <jooqConfiguration/>
+        </configuration>
+        """;
+    Xpp3Dom configuration = Xpp3DomBuilder.build(new ByteArrayInputStream(
+        configurationXml.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name());
+    Mockito.doReturn(configuration).when(plugin).getConfiguration();
+    Statement statement = Mockito.mock(Statement.class);
+    Connection connection = Mockito.mock(Connection.class);
+    Mockito.doReturn(statement).when(connection).createStatement();
+    Mockito.doReturn(Mockito.mock(ResultSet.class)).when(statement)
+        .executeQuery(Mockito.anyString());
+    Mockito.doReturn(Mockito.mock(PreparedStatement.class))
+        .when(connection).prepareStatement(Mockito.anyString());
+    List<Xpp3Dom> liquibaseConfigurations = new ArrayList<>();
+    List<String> urls = new ArrayList<>();
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class, (mock, context) -> {
+          Mockito.doReturn("jdbc:postgresql://localhost:5432/test").when(mock).getJdbcUrl();
+          Mockito.doReturn("test").when(mock).getUsername();
+          Mockito.doReturn("test").when(mock).getPassword();
+        });
+        MockedConstruction<Driver> driverMockedConstruction =
+            Mockito.mockConstruction(Driver.class, (mock, context) ->
+                Mockito.doReturn(connection).when(mock)
+                    .connect(Mockito.anyString(), Mockito.any()));
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojoExecutor.when(() -> MojoExecutor.executeMojo(Mockito.any(), Mockito.any(), Mockito.any(),
+          Mockito.<ExecutionEnvironment>any())).thenAnswer(invocation -> {
+            Xpp3Dom executed = invocation.getArgument(2);
+            if (executed.getChild("url") != null) {
+              Assertions.assertNull(executed.getChild("databaseChangeLogTableName"));
+              liquibaseConfigurations.add(executed);
+              urls.add(executed.getChild("url").getValue());
+              // the mojo executor merges the defaults of the executed mojo into the configuration
+              Xpp3Dom tableName = new Xpp3Dom("databaseChangeLogTableName");
+              tableName.setValue("${liquibase.databaseChangeLogTableName}");
+              executed.addChild(tableName);
+            }
+            return null;
+          });
+
+      mojo.execute();
+      mojo.execute();
+    }
+
+    Assertions.assertEquals(Xpp3DomBuilder.build(new ByteArrayInputStream(
+            configurationXml.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()),
+        configuration);
+    Assertions.assertEquals(2, liquibaseConfigurations.size());
+    Assertions.assertNotSame(liquibaseConfigurations.get(0), liquibaseConfigurations.get(1));
+    Assertions.assertNotEquals(urls.get(0), urls.get(1));
+    for (String url : urls) {
+      Assertions.assertTrue(url.matches("jdbc:postgresql://localhost:5432/pgljc_\\w+"), url);
+    }
+    ArgumentCaptor<String> queries = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(statement, Mockito.atLeastOnce()).executeQuery(queries.capture());
+    Assertions.assertTrue(queries.getAllValues().stream()
+        .noneMatch(query -> query.contains("${")), queries.getAllValues()::toString);
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldReportFailuresOfAllGenerationsTogether() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    MojoTestSupport.setMojoField(mojo, "parallelism", 2);
+    Build build = new Build();
+    build.setDirectory(basedir.resolve("target").toString());
+    Mockito.doReturn(build).when(mavenProject).getBuild();
+    Mockito.doReturn(basedir.toFile()).when(mavenProject).getBasedir();
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doAnswer(invocation -> Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <generations>
+                <generation>
+                  <id>main</id>
+                  <liquibaseConfiguration/>
+                  <jooqConfiguration/>
+                </generation>
+                <generation>
+                  <id>read-model</id>
+                  <liquibaseConfiguration/>
+                  <jooqConfiguration>
+                    <generator>
+                      <target>
+                        <packageName>com.ramanbabich.dbljc.pgljcmavenplugin.jooq</packageName>
+                      </target>
+                    </generator>
+                  </jooqConfiguration>
+                </generation>
+              </generations>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class, (mock, context) -> {
+          // nothing listens on this port, so the databases of the generations can't be created
+          Mockito.doReturn("jdbc:postgresql://localhost:1/test").when(mock).getJdbcUrl();
+          Mockito.doReturn("test").when(mock).getUsername();
+          Mockito.doReturn("test").when(mock).getPassword();
+        })) {
+      MojoExecutionException exception =
+          Assertions.assertThrows(MojoExecutionException.class, mojo::execute);
+
+      Assertions.assertTrue(exception.getMessage().startsWith("2 of 2 generations failed"));
+      Assertions.assertTrue(exception.getMessage().contains("generation 'main'"));
+      Assertions.assertTrue(exception.getMessage().contains("generation 'read-model'"));
+      Assertions.assertEquals(2, exception.getSuppressed().length);
+      Assertions.assertEquals(1, pgMockedConstruction.constructed().size());
+      Mockito.verify(pgMockedConstruction.constructed().get(0)).close();
+    }
+  }
+
+  @Test
+  void shouldFailWhenGenerationsShareTargetPackage() throws Exception {
+    GenerateMojo mojo = buildMojoWithMocks();
+    Build build = new Build();
+    build.setDirectory(basedir.resolve("target").toString());
+    Mockito.doReturn(build).when(mavenProject).getBuild();
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doReturn(Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <generations>
+                <generation>
+                  <liquibaseConfiguration/>
+                  <jooqConfiguration/>
+                </generation>
+                <generation>
+                  <liquibaseConfiguration/>
+                  <jooqConfiguration/>
+                </generation>
+              </generations>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+
+    MojoExecutionException exception =
+        Assertions.assertThrows(MojoExecutionException.class, mojo::execute);
+
+    Assertions.assertTrue(exception.getMessage().contains("generation '2'"));
+  }
+
   private static boolean eqByCrucialFields(Plugin actual, Plugin expected) {
     if (actual.getGroupId().equals(expected.getGroupId())
         && actual.getArtifactId().equals(expected.getArtifactId())
@@ -221,26 +735,16 @@ class GenerateMojoTest {
   }
 
   private GenerateMojo buildMojoWithMocks() {
-    GenerateMojo mojo = new GenerateMojo();
-    setMojoField(mojo, "project", mavenProject);
-    setMojoField(mojo, "session", mavenSession);
-    setMojoField(mojo, "buildPluginManager", buildPluginManager);
-    setMojoField(mojo, "postgresDockerImageName", POSTGRES_DOCKER_IMAGE_NAME);
-    setMojoField(mojo, "postgresJdbcDriverVersion", POSTGRES_JDBC_DRIVER_VERSION);
-    setMojoField(mojo, "liquibaseMavenPluginVersion", LIQUIBASE_MAVEN_PLUGIN_VERSION);
-    setMojoField(mojo, "jooqCodegenMavenPluginVersion", JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION);
+    GenerateMojo mojo = MojoTestSupport.buildMojoWithMocks(new GenerateMojo(), mavenProject,
+        mavenSession, buildPluginManager, mojoExecution, basedir, "pgljc-generate");
+    MojoTestSupport.setMojoField(mojo, "postgresDockerImageName", POSTGRES_DOCKER_IMAGE_NAME);
+    MojoTestSupport.setMojoField(mojo, "postgresJdbcDriverVersion", POSTGRES_JDBC_DRIVER_VERSION);
+    MojoTestSupport.setMojoField(mojo, "liquibaseMavenPluginVersion",
+        LIQUIBASE_MAVEN_PLUGIN_VERSION);
+    MojoTestSupport.setMojoField(mojo, "jooqCodegenMavenPluginVersion",
+        JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION);
     return mojo;
   }
 
-  private static void setMojoField(GenerateMojo mojo, String name, Object value) {
-    try {
-      Field project = GenerateMojo.class.getDeclaredField(name);
-      project.setAccessible(true);
-      project.set(mojo, value);
-      project.setAccessible(false);
-    } catch (Exception ex) {
-      throw new RuntimeException(ex);
-    }
-  }
 
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedConstruction;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.twdata.maven.mojoexecutor.MojoExecutor;
+import org.twdata.maven.mojoexecutor.MojoExecutor.ExecutionEnvironment;
+
+/**
+ * @author Raman Babich
+ */
+class GenerateNoForkMojoTest {
+
+  private static final String THIS_PLUGIN_KEY = "com.ramanbabich.dbljc:pgljc-maven-plugin";
+  private static final String RESOURCES_PLUGIN_KEY =
+      "org.apache.maven.plugins:maven-resources-plugin";
+  private static final String LIQUIBASE_MAVEN_PLUGIN_GOAL = "update";
+  private static final String RESOURCES_PLUGIN_GOAL = "resources";
+
+  private final MavenProject mavenProject = Mockito.mock(MavenProject.class);
+  private final MavenSession mavenSession = Mockito.mock(MavenSession.class);
+  private final BuildPluginManager buildPluginManager = Mockito.mock(BuildPluginManager.class);
+  private final MojoExecution mojoExecution = Mockito.mock(MojoExecution.class);
+
+  @TempDir
+  private Path basedir;
+  private Resource resource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    resource = new Resource();
+    resource.setDirectory(basedir.resolve("src/main/resources").toString());
+    Mockito.doReturn(List.of(resource)).when(mavenProject).getResources();
+    Path changelog = basedir.resolve("src/main/resources/db/changelog/master.yaml");
+    Files.createDirectories(changelog.getParent());
+    Files.writeString(changelog, "databaseChangeLog: []", StandardCharsets.UTF_8);
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doAnswer(invocation -> Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration>
+                <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+              </liquibaseConfiguration>
+              <jooqConfiguration/>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldLookChangelogsUpInResourceDirectories() throws Exception {
+    GenerateNoForkMojo mojo = buildMojoWithMocks();
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class);
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojoExecutor.when(() -> MojoExecutor.goal(LIQUIBASE_MAVEN_PLUGIN_GOAL))
+          .thenReturn(LIQUIBASE_MAVEN_PLUGIN_GOAL);
+
+      mojo.execute();
+
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(
+          Mockito.any(),
+          Mockito.eq(LIQUIBASE_MAVEN_PLUGIN_GOAL),
+          Mockito.argThat(configuration -> resource.getDirectory().equals(
+              configuration.getChild("searchPath").getValue())),
+          Mockito.<ExecutionEnvironment>any()));
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(
+          Mockito.argThat(plugin -> RESOURCES_PLUGIN_KEY.equals(plugin.getKey())),
+          Mockito.any(),
+          Mockito.any(),
+          Mockito.<ExecutionEnvironment>any()), Mockito.never());
+    }
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  void shouldProcessResourcesWhenChangelogsAreFiltered() throws Exception {
+    GenerateNoForkMojo mojo = buildMojoWithMocks();
+    resource.setFiltering(true);
+
+    try (MockedConstruction<PostgreSQLContainer> pgMockedConstruction =
+        Mockito.mockConstruction(PostgreSQLContainer.class);
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      mojoExecutor.when(() -> MojoExecutor.goal(LIQUIBASE_MAVEN_PLUGIN_GOAL))
+          .thenReturn(LIQUIBASE_MAVEN_PLUGIN_GOAL);
+      mojoExecutor.when(() -> MojoExecutor.goal(RESOURCES_PLUGIN_GOAL))
+          .thenReturn(RESOURCES_PLUGIN_GOAL);
+
+      mojo.execute();
+
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(
+          Mockito.argThat(plugin -> RESOURCES_PLUGIN_KEY.equals(plugin.getKey())),
+          Mockito.eq(RESOURCES_PLUGIN_GOAL),
+          Mockito.any(Xpp3Dom.class),
+          Mockito.<ExecutionEnvironment>any()));
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(
+          Mockito.any(),
+          Mockito.eq(LIQUIBASE_MAVEN_PLUGIN_GOAL),
+          Mockito.argThat(configuration -> configuration.getChild("searchPath") == null),
+          Mockito.<ExecutionEnvironment>any()));
+    }
+  }
+
+  private GenerateNoForkMojo buildMojoWithMocks() {
+    return MojoTestSupport.buildMojoWithMocks(new GenerateNoForkMojo(), mavenProject,
+        mavenSession, buildPluginManager, mojoExecution, basedir, "pgljc-generate");
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Raman Babich
+ */
+class GenerationCacheTest {
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void shouldRestoreStoredEntry() throws Exception {
+    GenerationCache cache = new GenerationCache(
+        tempDir.resolve("cache"), Long.MAX_VALUE, Duration.ofDays(1));
+    Path source = tempDir.resolve("source");
+    write(source.resolve("tables/Data.java"), "class Data {}");
+    Path target = tempDir.resolve("target");
+    write(target.resolve("tables/Obsolete.java"), "class Obsolete {}");
+
+    Assertions.assertFalse(cache.restore("key", target));
+    cache.store("key", source);
+
+    Assertions.assertTrue(cache.restore("key", target));
+    Assertions.assertEquals("class Data {}",
+        Files.readString(target.resolve("tables/Data.java"), StandardCharsets.UTF_8));
+    Assertions.assertFalse(Files.exists(target.resolve("tables/Obsolete.java")));
+  }
+
+  @Test
+  void shouldReplaceEntryLeftWithoutFiles() throws Exception {
+    Path directory = tempDir.resolve("cache");
+    GenerationCache cache = new GenerationCache(directory, Long.MAX_VALUE, Duration.ofDays(1));
+    write(directory.resolve("key/last-access"), "");
+    Path source = tempDir.resolve("source");
+    write(source.resolve("Data.java"), "class Data {}");
+    Path target = tempDir.resolve("target");
+
+    Assertions.assertFalse(cache.restore("key", target));
+    cache.store("key", source);
+
+    Assertions.assertTrue(cache.restore("key", target));
+    Assertions.assertTrue(Files.exists(target.resolve("Data.java")));
+  }
+
+  @Test
+  void shouldEvictExpiredAndLeastRecentlyUsedEntries() throws Exception {
+    Path directory = tempDir.resolve("cache");
+    GenerationCache cache = new GenerationCache(directory, 10, Duration.ofDays(1));
+    Path source = tempDir.resolve("source");
+    write(source.resolve("Data.java"), "0123456789");
+    cache.store("expired", source);
+    cache.store("old", source);
+    cache.store("recent", source);
+    setLastAccess(directory.resolve("expired"), Instant.now().minus(Duration.ofDays(2)));
+    setLastAccess(directory.resolve("old"), Instant.now().minus(Duration.ofHours(2)));
+
+    cache.evict();
+
+    Assertions.assertFalse(Files.exists(directory.resolve("expired")));
+    Assertions.assertFalse(Files.exists(directory.resolve("old")));
+    Assertions.assertTrue(Files.exists(directory.resolve("recent")));
+  }
+
+  private static void setLastAccess(Path entry, Instant instant) throws Exception {
+    Files.setLastModifiedTime(entry.resolve("last-access"), FileTime.from(instant));
+  }
+
+  private static void write(Path file, String content) throws Exception {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Raman Babich
+ */
+class InProcessEngineTest {
+
+  @Test
+  void shouldMapLiquibaseMavenPluginParameters() throws Exception {
+    Xpp3Dom configuration = build("""
+        <configuration>
+          <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+          <contexts>default</contexts>
+          <labels>!slow</labels>
+          <databaseChangeLogTableName>changelog</databaseChangeLogTableName>
+          <searchPath>src/main/resources</searchPath>
+          <driver>org.postgresql.Driver</driver>
+          <url>jdbc:postgresql://localhost:5432/test</url>
+          <username>test</username>
+          <password></password>
+        </configuration>
+        """);
+
+    Assertions.assertEquals(
+        Map.of(
+            "changelogFile", "/db/changelog/master.yaml",
+            "contexts", "default",
+            "labelFilter", "!slow",
+            "url", "jdbc:postgresql://localhost:5432/test",
+            "username", "test",
+            "password", ""),
+        InProcessEngine.liquibaseCommandArguments(configuration));
+    Assertions.assertEquals(
+        Map.of("liquibase.databaseChangelogTableName", "changelog"),
+        InProcessEngine.liquibaseScopeValues(configuration));
+  }
+
+  @Test
+  void shouldFailOnUnsupportedLiquibaseMavenPluginParameters() throws Exception {
+    Xpp3Dom configuration = build("""
+        <configuration>
+          <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+          <propertyFile>liquibase.properties</propertyFile>
+        </configuration>
+        """);
+
+    MojoExecutionException exception = Assertions.assertThrows(MojoExecutionException.class,
+        () -> InProcessEngine.liquibaseCommandArguments(configuration));
+
+    Assertions.assertTrue(exception.getMessage().contains("[propertyFile]"));
+  }
+
+  private static Xpp3Dom build(String xml) throws Exception {
+    return Xpp3DomBuilder.build(
+        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+        StandardCharsets.UTF_8.name());
+  }
+
+}
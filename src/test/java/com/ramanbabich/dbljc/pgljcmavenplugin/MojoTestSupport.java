@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.mockito.Mockito;
+
+/**
+ * Sets the mojos up with the mocked maven components the way maven sets them up for the
+ * execution.
+ *
+ * @author Raman Babich
+ */
+final class MojoTestSupport {
+
+  private MojoTestSupport() {
+  }
+
+  /**
+   * Injects the mocks and the default parameters into the mojo, the mojo runs the maven engine
+   * with docker postgres and works in the {@code target/pgljc} directory of the base directory.
+   */
+  static <T extends AbstractGenerateMojo> T buildMojoWithMocks(T mojo, MavenProject mavenProject,
+      MavenSession mavenSession, BuildPluginManager buildPluginManager,
+      MojoExecution mojoExecution, Path basedir, String executionId) {
+    setMojoField(mojo, "project", mavenProject);
+    setMojoField(mojo, "session", mavenSession);
+    setMojoField(mojo, "buildPluginManager", buildPluginManager);
+    setMojoField(mojo, "executionEngine", "maven");
+    setMojoField(mojo, "postgresProvider", "docker");
+    setMojoField(mojo, "mojoExecution", mojoExecution);
+    setMojoField(mojo, "workDirectory", basedir.resolve("target/pgljc").toFile());
+    setMojoField(mojo, "postgresDockerImageName",
+        PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME);
+    setMojoField(mojo, "postgresJdbcDriverVersion",
+        AbstractGenerateMojo.DEFAULT_POSTGRES_JDBC_DRIVER_VERSION);
+    setMojoField(mojo, "liquibaseMavenPluginVersion",
+        AbstractGenerateMojo.DEFAULT_LIQUIBASE_MAVEN_PLUGIN_VERSION);
+    setMojoField(mojo, "jooqCodegenMavenPluginVersion",
+        AbstractGenerateMojo.DEFAULT_JOOQ_CODEGEN_MAVEN_PLUGIN_VERSION);
+    Mockito.doReturn(executionId).when(mojoExecution).getExecutionId();
+    Build build = new Build();
+    build.setDirectory(basedir.resolve("target").toString());
+    Mockito.doReturn(build).when(mavenProject).getBuild();
+    Mockito.doReturn(basedir.toFile()).when(mavenProject).getBasedir();
+    return mojo;
+  }
+
+  /**
+   * Switches the mojo to the ephemeral embedded postgres which binaries are resolved from the
+   * test classpath.
+   */
+  static void useEmbeddedPostgres(AbstractGenerateMojo mojo) throws Exception {
+    setMojoField(mojo, "postgresProvider", "embedded");
+    setMojoField(mojo, "embeddedPostgresVersion", EmbeddedPostgresServer.DEFAULT_BINARIES_VERSION);
+    setMojoField(mojo, "repositorySystem", EmbeddedPostgresServerTest.classpathRepositorySystem());
+    setMojoField(mojo, "ephemeralPostgres", true);
+  }
+
+  static void setMojoField(AbstractGenerateMojo mojo, String name, Object value) {
+    try {
+      Field field = AbstractGenerateMojo.class.getDeclaredField(name);
+      field.setAccessible(true);
+      field.set(mojo, value);
+      field.setAccessible(false);
+    } catch (Exception ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.PluginResolutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * @author Raman Babich
+ */
+class PrepareMojoTest {
+
+  private final MavenProject mavenProject = Mockito.mock(MavenProject.class);
+  private final MavenSession mavenSession = Mockito.mock(MavenSession.class);
+  private final BuildPluginManager buildPluginManager = Mockito.mock(BuildPluginManager.class);
+  private final MojoExecution mojoExecution = Mockito.mock(MojoExecution.class);
+
+  @TempDir
+  private Path basedir;
+
+  @Test
+  void shouldPreparePostgresAndPlugins() throws Exception {
+    PrepareMojo mojo = buildMojoWithMocks();
+    PluginDescriptor descriptor = Mockito.mock(PluginDescriptor.class);
+    Mockito.doReturn(descriptor).when(buildPluginManager)
+        .loadPlugin(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+
+    mojo.execute();
+
+    ArgumentCaptor<Plugin> plugins = ArgumentCaptor.forClass(Plugin.class);
+    Mockito.verify(buildPluginManager, Mockito.times(2))
+        .loadPlugin(plugins.capture(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    Assertions.assertEquals(
+        List.of("org.jooq:jooq-codegen-maven:3.18.4",
+            "org.liquibase:liquibase-maven-plugin:4.22.0"),
+        plugins.getAllValues().stream().map(Plugin::getId).sorted().toList());
+    Mockito.verify(buildPluginManager, Mockito.times(2)).getPluginRealm(mavenSession, descriptor);
+    String report = Files.readString(
+        basedir.resolve("target/pgljc/pgljc-prepare/report.json"), StandardCharsets.UTF_8);
+    Assertions.assertTrue(report.contains("\"containerStart\""), report);
+    Assertions.assertTrue(report.contains("\"pluginResolution\""), report);
+  }
+
+  @Test
+  void shouldReportFailedPreparations() throws Exception {
+    PrepareMojo mojo = buildMojoWithMocks();
+    Mockito.doAnswer(invocation -> {
+      Plugin plugin = invocation.getArgument(0);
+      throw new PluginResolutionException(plugin, new IllegalStateException("offline"));
+    }).when(buildPluginManager)
+        .loadPlugin(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+
+    MojoExecutionException exception =
+        Assertions.assertThrows(MojoExecutionException.class, mojo::execute);
+
+    Assertions.assertTrue(exception.getMessage().startsWith("2 of 3 preparations failed:"),
+        exception.getMessage());
+    Assertions.assertTrue(exception.getMessage().contains("liquibase: Unable to load"),
+        exception.getMessage());
+    Assertions.assertTrue(exception.getMessage().contains("jooq: Unable to load"),
+        exception.getMessage());
+  }
+
+  private PrepareMojo buildMojoWithMocks() throws Exception {
+    PrepareMojo mojo = MojoTestSupport.buildMojoWithMocks(new PrepareMojo(), mavenProject,
+        mavenSession, buildPluginManager, mojoExecution, basedir, "pgljc-prepare");
+    MojoTestSupport.useEmbeddedPostgres(mojo);
+    return mojo;
+  }
+
+}
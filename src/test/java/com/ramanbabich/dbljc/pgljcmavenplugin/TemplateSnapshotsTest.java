@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * @author Raman Babich
+ */
+class TemplateSnapshotsTest {
+
+  private static final String PREFIX = "pgljc_tpl_";
+
+  private final PostgresDatabase server = Mockito.mock(PostgresDatabase.class);
+
+  @Test
+  void shouldFindSnapshotOfLongestPrefix() throws Exception {
+    Mockito.doReturn(List.of(PREFIX + "aaa", PREFIX + "bbb")).when(server).databaseNames(PREFIX);
+    TemplateSnapshots snapshots = new TemplateSnapshots(server, 5);
+
+    Assertions.assertEquals(PREFIX + "bbb", snapshots.findLongest(List.of("aaa", "bbb", "ccc")));
+    Assertions.assertNull(snapshots.findLongest(List.of("ddd")));
+  }
+
+  @Test
+  void shouldCreateSnapshotAndDropOldest() throws Exception {
+    Mockito.when(server.databaseNames(PREFIX))
+        .thenReturn(List.of(PREFIX + "bbb", PREFIX + "aaa"))
+        .thenReturn(List.of(PREFIX + "ccc", PREFIX + "bbb", PREFIX + "aaa"));
+    TemplateSnapshots snapshots = new TemplateSnapshots(server, 2);
+
+    snapshots.create("ccc", "pgljc_database");
+
+    Mockito.verify(server).createDatabase(PREFIX + "ccc", "pgljc_database");
+    Mockito.verify(server).dropDatabase(PREFIX + "aaa");
+    Mockito.verify(server, Mockito.never()).dropDatabase(PREFIX + "bbb");
+  }
+
+}
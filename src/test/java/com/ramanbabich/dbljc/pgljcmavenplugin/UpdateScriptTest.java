@@ -0,0 +1,168 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Raman Babich
+ */
+class UpdateScriptTest {
+
+  private static final String SCRIPT = """
+      -- Create Database Change Log Table
+      CREATE TABLE databasechangelog (ID VARCHAR(255) NOT NULL);
+
+      -- *********************************************************************
+      -- Update Database Script
+      -- *********************************************************************
+
+      -- Changeset db/changelog.yaml::1::author
+      CREATE TABLE first (id BIGINT);
+
+      INSERT INTO databasechangelog (ID) VALUES ('1');
+
+      -- Changeset db/changelog.yaml::2::author
+      CREATE FUNCTION answer() RETURNS INT AS $$ SELECT 42; $$ LANGUAGE sql;
+
+      INSERT INTO databasechangelog (ID) VALUES ('2');
+
+      -- Changeset db/changelog.yaml::3::author
+      CREATE INDEX CONCURRENTLY first_id_idx ON first (id);
+
+      INSERT INTO databasechangelog (ID) VALUES ('3');
+
+      -- Changeset db/changelog.yaml::4::author
+      CREATE TABLE second (id BIGINT);
+
+      INSERT INTO databasechangelog (ID) VALUES ('4');
+
+      -- Release Database Lock
+      """;
+
+  private static PostgresServer server;
+
+  @BeforeAll
+  static void startServer() throws Exception {
+    server = EmbeddedPostgresServer.start(PostgresContainerSettings.of(
+        PostgresContainerSettings.DEFAULT_DOCKER_IMAGE_NAME, true, List.of(), false));
+  }
+
+  @AfterAll
+  static void stopServer() {
+    server.close();
+  }
+
+  @Test
+  void shouldSplitScriptIntoChangesets() {
+    UpdateScript script = UpdateScript.parse(SCRIPT);
+
+    Assertions.assertEquals(List.of(
+        "db/changelog.yaml::1::author", "db/changelog.yaml::2::author",
+        "db/changelog.yaml::3::author", "db/changelog.yaml::4::author"), script.changesets());
+  }
+
+  @Test
+  void shouldApplyScriptInBatches() throws Exception {
+    PostgresDatabase database = server.database().createDatabase("update_script_batches");
+
+    try (Connection connection = database.connect();
+        Statement statement = connection.createStatement()) {
+      UpdateScript.parse(SCRIPT).apply(connection, 2);
+
+      Assertions.assertEquals(4, count(statement, "SELECT count(*) FROM databasechangelog"));
+      Assertions.assertEquals(1, count(statement,
+          "SELECT count(*) FROM pg_indexes WHERE indexname = 'first_id_idx'"));
+      Assertions.assertEquals(42, count(statement, "SELECT answer()"));
+      Assertions.assertEquals(0, count(statement, "SELECT count(*) FROM second"));
+    }
+  }
+
+  @Test
+  void shouldApplyDollarQuotedBodiesOfNonTransactionalChangeset() throws Exception {
+    PostgresDatabase database = server.database().createDatabase("update_script_dollar_quotes");
+    String script = """
+        -- Changeset db/changelog.yaml::1::author
+        CREATE TABLE data (id BIGINT, note TEXT);
+
+        CREATE INDEX CONCURRENTLY data_id_idx ON data (id);
+
+        CREATE FUNCTION next_id() RETURNS BIGINT LANGUAGE plpgsql AS $body$
+        DECLARE
+          result BIGINT;
+        BEGIN
+          SELECT coalesce(max(id), 0) + 1 INTO result FROM data;
+          RETURN result;
+        END;
+        $body$;
+
+        DO $$
+        BEGIN
+          INSERT INTO data VALUES (next_id(), 'semicolon; inside');
+          INSERT INTO data VALUES (next_id(), E'escaped \\'; quote');
+        END;
+        $$;
+
+        INSERT INTO databasechangelog (ID) VALUES ('1');
+
+        -- Release Database Lock
+        """;
+
+    try (Connection connection = database.connect();
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE databasechangelog (ID VARCHAR(255) NOT NULL)");
+      UpdateScript.parse(script).apply(connection, UpdateScript.BATCH_SIZE);
+
+      Assertions.assertEquals(2, count(statement, "SELECT count(*) FROM data"));
+      Assertions.assertEquals(3, count(statement, "SELECT next_id()"));
+      Assertions.assertEquals(1, count(statement, "SELECT count(*) FROM databasechangelog"));
+      Assertions.assertEquals(1, count(statement,
+          "SELECT count(*) FROM pg_indexes WHERE indexname = 'data_id_idx'"));
+    }
+  }
+
+  @Test
+  void shouldNameFailedChangeset() throws Exception {
+    PostgresDatabase database = server.database().createDatabase("update_script_failure");
+    String script = SCRIPT.replace("CREATE TABLE second", "CREATE TABLE first");
+
+    try (Connection connection = database.connect()) {
+      SQLException exception = Assertions.assertThrows(SQLException.class,
+          () -> UpdateScript.parse(script).apply(connection, UpdateScript.BATCH_SIZE));
+
+      Assertions.assertTrue(exception.getMessage().startsWith(
+          "Changeset db/changelog.yaml::4::author failed: "), exception.getMessage());
+      Assertions.assertTrue(connection.getAutoCommit());
+    }
+  }
+
+  private static long count(Statement statement, String query) throws SQLException {
+    try (ResultSet resultSet = statement.executeQuery(query)) {
+      Assertions.assertTrue(resultSet.next());
+      return resultSet.getLong(1);
+    }
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ramanbabich.dbljc.pgljcmavenplugin;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedConstruction;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.twdata.maven.mojoexecutor.MojoExecutor;
+import org.twdata.maven.mojoexecutor.MojoExecutor.ExecutionEnvironment;
+
+/**
+ * @author Raman Babich
+ */
+class WatchMojoTest {
+
+  private static final String THIS_PLUGIN_KEY = "com.ramanbabich.dbljc:pgljc-maven-plugin";
+  private static final String LIQUIBASE_MAVEN_PLUGIN_GOAL = "update";
+
+  private final MavenProject mavenProject = Mockito.mock(MavenProject.class);
+  private final MavenSession mavenSession = Mockito.mock(MavenSession.class);
+  private final BuildPluginManager buildPluginManager = Mockito.mock(BuildPluginManager.class);
+  private final MojoExecution mojoExecution = Mockito.mock(MojoExecution.class);
+
+  @TempDir
+  private Path basedir;
+
+  @Test
+  void shouldRegenerateOnChangeAndStopServerOnExit() throws Exception {
+    WatchMojo mojo = buildMojoWithMocks();
+    Path changelog = basedir.resolve("src/main/resources/db/changelog/master.yaml");
+    Path fingerprintFile = basedir.resolve("target/pgljc/pgljc-watch/fingerprint");
+    AtomicReference<String> initialFingerprint = new AtomicReference<>();
+    AtomicReference<PostgresServer> server = new AtomicReference<>();
+
+    try (MockedStatic<EmbeddedPostgresServer> embeddedPostgresServer =
+        Mockito.mockStatic(EmbeddedPostgresServer.class, Mockito.CALLS_REAL_METHODS);
+        MockedConstruction<ChangelogWatcher> watcherMockedConstruction =
+            Mockito.mockConstruction(ChangelogWatcher.class, (mock, context) ->
+                Mockito.when(mock.awaitChanges(ArgumentMatchers.any()))
+                    .thenAnswer(invocation -> {
+                      initialFingerprint.set(
+                          Files.readString(fingerprintFile, StandardCharsets.UTF_8));
+                      Files.writeString(changelog, "databaseChangeLog: [{}]",
+                          StandardCharsets.UTF_8);
+                      return Set.of(changelog);
+                    })
+                    .thenThrow(new InterruptedException()));
+        MockedStatic<MojoExecutor> mojoExecutor = Mockito.mockStatic(MojoExecutor.class)) {
+      embeddedPostgresServer.when(() -> EmbeddedPostgresServer.start(
+              ArgumentMatchers.any(), ArgumentMatchers.any()))
+          .thenAnswer(invocation -> {
+            server.set(Mockito.spy((PostgresServer) invocation.callRealMethod()));
+            return server.get();
+          });
+      mojoExecutor.when(() -> MojoExecutor.goal(LIQUIBASE_MAVEN_PLUGIN_GOAL))
+          .thenReturn(LIQUIBASE_MAVEN_PLUGIN_GOAL);
+
+      try {
+        mojo.execute();
+      } finally {
+        Assertions.assertTrue(Thread.interrupted());
+      }
+
+      ChangelogWatcher watcher = watcherMockedConstruction.constructed().get(0);
+      Mockito.verify(watcher, Mockito.times(2)).awaitChanges(ArgumentMatchers.any());
+      mojoExecutor.verify(() -> MojoExecutor.executeMojo(
+          ArgumentMatchers.any(),
+          ArgumentMatchers.eq(LIQUIBASE_MAVEN_PLUGIN_GOAL),
+          ArgumentMatchers.any(),
+          ArgumentMatchers.<ExecutionEnvironment>any()), Mockito.times(2));
+      Assertions.assertNotEquals(initialFingerprint.get(),
+          Files.readString(fingerprintFile, StandardCharsets.UTF_8));
+      Mockito.verify(server.get()).close();
+    }
+  }
+
+  private WatchMojo buildMojoWithMocks() throws Exception {
+    WatchMojo mojo = MojoTestSupport.buildMojoWithMocks(new WatchMojo(), mavenProject,
+        mavenSession, buildPluginManager, mojoExecution, basedir, "pgljc-watch");
+    MojoTestSupport.useEmbeddedPostgres(mojo);
+    MojoTestSupport.setMojoField(mojo, "incremental", true);
+    MojoTestSupport.setMojoField(mojo, "parallelism", 1);
+    Resource resource = new Resource();
+    resource.setDirectory(basedir.resolve("src/main/resources").toString());
+    Mockito.doReturn(List.of(resource)).when(mavenProject).getResources();
+    Path changelog = basedir.resolve("src/main/resources/db/changelog/master.yaml");
+    Files.createDirectories(changelog.getParent());
+    Files.writeString(changelog, "databaseChangeLog: []", StandardCharsets.UTF_8);
+    Plugin plugin = Mockito.mock(Plugin.class);
+    Mockito.doReturn(plugin).when(mavenProject).getPlugin(THIS_PLUGIN_KEY);
+    Mockito.doAnswer(invocation -> Xpp3DomBuilder.build(new ByteArrayInputStream("""
+            <configuration>
+              <liquibaseConfiguration>
+                <changeLogFile>/db/changelog/master.yaml</changeLogFile>
+              </liquibaseConfiguration>
+              <jooqConfiguration/>
+            </configuration>
+            """.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8.name()))
+        .when(plugin).getConfiguration();
+    return mojo;
+  }
+
+}